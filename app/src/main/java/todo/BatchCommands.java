@@ -0,0 +1,482 @@
+package todo;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.*;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+import java.io.*;
+import java.net.InetSocketAddress;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+// неинтерактивный режим: одна команда из аргументов или сценарий команд по одной в строке.
+// Меню не выводится, сообщения TaskManager подавляются: команда печатает только результат
+// (ID новой задачи, найденные задачи), ошибки уходят в err, а код выхода ненулевой.
+// Если для файла задач запущен демон (TaskDaemon), команда передается ему
+final class BatchCommands {
+    static final int EXIT_OK = 0;
+    static final int EXIT_FAILED = 1;
+    static final int EXIT_USAGE = 2;
+
+    private static final String FILE_OPTION = "--file";
+    private static final String SCRIPT_OPTION = "--script";
+    private static final String SOCKET_OPTION = "--socket";
+    private static final String DURABILITY_OPTION = "--durability";
+    private static final String SOCKET_SUFFIX = ".sock";
+    private static final String DAEMON_COMMAND = "daemon";
+    private static final String STDIN_SCRIPT = "-";
+    private static final String USAGE = String.join(System.lineSeparator(),
+            "использование: ToDoApp [--file <файл>] [--socket <сокет>] [--durability none|flush|fsync] <команда> [аргументы]",
+            "               ToDoApp [--file <файл>] [--socket <сокет>] [--durability ...] --script <файл сценария | ->",
+            "               --jfr <файл.jfr> перед командой (или без нее) пишет запись Flight Recorder",
+            "команды:",
+            "  add <описание> [--due дд.мм.гггг] [--priority 1|2|3]",
+            "  list [--order insertion|deadline|priority] [--open | --done] [--offset N] [--limit N]",
+            "  search <ключевое слово>",
+            "  done <ID>...",
+            "  rm <ID>...",
+            "  import <файл>",
+            "  serve [--host адрес] [--port N] [--threads N]   HTTP/JSON API, до Ctrl+C",
+            "  daemon   держать задачи в памяти и принимать команды через сокет (<файл>.sock), до Ctrl+C",
+            "  stats    статистика операций (через демон - за все время его работы)",
+            "  help");
+
+    private final TaskManager taskManager;
+    private final PrintWriter out;
+    private final PrintWriter err;
+    // относительные пути команд отсчитываются от каталога, где запущена команда
+    private final Path workingDirectory;
+    // команда пришла через демон
+    private final boolean remote;
+    private final TaskRenderer renderer = new TaskRenderer();
+
+    BatchCommands(TaskManager taskManager, PrintWriter out, PrintWriter err, Path workingDirectory, boolean remote) {
+        this.taskManager = taskManager;
+        this.out = out;
+        this.err = err;
+        this.workingDirectory = workingDirectory;
+        this.remote = remote;
+    }
+
+    // args - аргументы main; возвращается код выхода. durabilityLevel - надежность
+    // по умолчанию, --durability ее заменяет; команды, переданные демону, пишет демон со своей
+    static int run(String[] args, String defaultFilePath, PersistenceMode persistenceMode,
+                   DurabilityLevel durabilityLevel) {
+        PrintWriter err = new PrintWriter(System.err, true);
+        String filePath = defaultFilePath;
+        String scriptPath = null;
+        String socketOption = null;
+        int index = 0;
+        while (index < args.length && args[index].startsWith("--")) {
+            String option = args[index];
+            if (index + 1 >= args.length) {
+                return usage(err, "неизвестный параметр: " + option);
+            }
+            switch (option) {
+                case FILE_OPTION -> filePath = args[index + 1];
+                case SCRIPT_OPTION -> scriptPath = args[index + 1];
+                case SOCKET_OPTION -> socketOption = args[index + 1];
+                case DURABILITY_OPTION -> {
+                    durabilityLevel = parseDurability(args[index + 1]);
+                    if (durabilityLevel == null) {
+                        return usage(err, "неизвестная надежность записи: " + args[index + 1]);
+                    }
+                }
+                default -> {
+                    return usage(err, "неизвестный параметр: " + option);
+                }
+            }
+            index += 2;
+        }
+        List<String> command = Arrays.asList(args).subList(index, args.length);
+        if (scriptPath == null && command.isEmpty()) {
+            return usage(err, null);
+        }
+        if (scriptPath != null && !command.isEmpty()) {
+            return usage(err, "команда не совместима с " + SCRIPT_OPTION);
+        }
+
+        PrintWriter out = ConsoleOutput.writer();
+        Path socketPath = Path.of(socketOption != null ? socketOption : filePath + SOCKET_SUFFIX);
+        boolean startsDaemon = scriptPath == null && command.get(0).equals(DAEMON_COMMAND);
+        if (!startsDaemon) {
+            List<String> lines = command;
+            if (scriptPath != null) {
+                try (BufferedReader reader = openScript(scriptPath)) {
+                    lines = reader.lines().collect(Collectors.toList());
+                } catch (IOException | UncheckedIOException e) {
+                    err.println("ошибка чтения сценария: " + scriptPath + " - " + e.getMessage());
+                    return EXIT_FAILED;
+                }
+            }
+            int exitCode = TaskDaemon.forward(socketPath, scriptPath != null, lines, out, err);
+            if (exitCode != TaskDaemon.NOT_RUNNING) {
+                out.flush();
+                return exitCode;
+            }
+            command = lines;
+        } else if (command.size() > 1) {
+            return usage(err, "лишние аргументы: " + String.join(" ", command.subList(1, command.size())));
+        }
+
+        // демона нет: файл задач открывает этот процесс, если его не держит другой
+        TaskFileLock fileLock = TaskFileLock.acquire(filePath, err);
+        if (fileLock == null) {
+            return EXIT_FAILED;
+        }
+        // вывод TaskManager ("задача добавлена" и т.п.) в пакетном режиме не нужен
+        ConsoleOutput.setWriter(new PrintWriter(Writer.nullWriter()));
+        TaskManager taskManager = null;
+        try {
+            taskManager = new TaskManager(filePath, persistenceMode);
+            if (taskManager.isReadOnly()) {
+                err.println("файл задач " + filePath + " не загружен; исправьте его или восстановите из копии");
+                return EXIT_FAILED;
+            }
+            taskManager.setDurabilityLevel(durabilityLevel);
+            if (startsDaemon) {
+                taskManager.registerMetricsMBean();
+                return TaskDaemon.run(taskManager, socketPath, out, err);
+            }
+            BatchCommands commands = new BatchCommands(taskManager, out, err, Path.of(""), false);
+            return scriptPath != null ? commands.runScript(command) : commands.execute(command);
+        } finally {
+            // блокировка снимается только после записи файла при закрытии
+            if (taskManager != null) {
+                taskManager.close();
+            }
+            fileLock.close();
+            ConsoleOutput.setWriter(out);
+            out.flush();
+        }
+    }
+
+    private static BufferedReader openScript(String scriptPath) throws IOException {
+        return scriptPath.equals(STDIN_SCRIPT)
+                ? new BufferedReader(new InputStreamReader(System.in))
+                : Files.newBufferedReader(Path.of(scriptPath), Charset.defaultCharset());
+    }
+
+    private static int usage(PrintWriter err, String message) {
+        if (message != null) {
+            err.println(message);
+        }
+        err.println(USAGE);
+        return EXIT_USAGE;
+    }
+
+    private int usage(String message) {
+        return usage(err, message);
+    }
+
+    // ошибка в аргументах известной команды: справка целиком не выводится
+    private int invalid(String message) {
+        err.println(message);
+        return EXIT_USAGE;
+    }
+
+    // строки сценария выполняются по порядку; ошибка в строке не останавливает сценарий,
+    // код выхода - наибольший из кодов команд
+    int runScript(List<String> lines) {
+        int exitCode = EXIT_OK;
+        int lineNumber = 0;
+        for (String line : lines) {
+            lineNumber++;
+            String trimmed = line.strip();
+            if (trimmed.isEmpty() || trimmed.startsWith("#")) {
+                continue;
+            }
+            List<String> command = tokenize(trimmed);
+            int code = command != null ? execute(command) : invalid("незакрытая кавычка");
+            if (code != EXIT_OK) {
+                err.println("строка " + lineNumber + ": " + trimmed);
+                exitCode = Math.max(exitCode, code);
+            }
+        }
+        return exitCode;
+    }
+
+    // слова строки сценария; текст в двойных кавычках - одно слово. null при незакрытой кавычке
+    static List<String> tokenize(String line) {
+        List<String> tokens = new ArrayList<>();
+        StringBuilder token = new StringBuilder();
+        boolean quoted = false;
+        boolean hasToken = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (c == '"') {
+                quoted = !quoted;
+                hasToken = true;
+            } else if (!quoted && Character.isWhitespace(c)) {
+                if (hasToken) {
+                    tokens.add(token.toString());
+                    token.setLength(0);
+                    hasToken = false;
+                }
+            } else {
+                token.append(c);
+                hasToken = true;
+            }
+        }
+        if (quoted) {
+            return null;
+        }
+        if (hasToken) {
+            tokens.add(token.toString());
+        }
+        return tokens;
+    }
+
+    int execute(List<String> command) {
+        List<String> arguments = command.subList(1, command.size());
+        return switch (command.get(0)) {
+            case "add" -> add(arguments);
+            case "list" -> list(arguments);
+            case "search" -> search(arguments);
+            case "done" -> complete(arguments);
+            case "rm" -> remove(arguments);
+            case "import" -> importFile(arguments);
+            case "serve" -> remote ? invalid("serve недоступна через демон") : serve(arguments);
+            case DAEMON_COMMAND -> invalid("daemon запускается отдельной командой");
+            case "stats" -> stats(arguments);
+            case "help" -> {
+                out.println(USAGE);
+                yield EXIT_OK;
+            }
+            default -> usage("неизвестная команда: " + command.get(0));
+        };
+    }
+
+    // add <описание> [--due дд.мм.гггг] [--priority 1|2|3]; печатается ID новой задачи
+    private int add(List<String> arguments) {
+        Map<String, String> options = new HashMap<>();
+        List<String> words = parseOptions(arguments, Set.of("--due", "--priority"), Set.of(), options);
+        if (words == null) {
+            return EXIT_USAGE;
+        }
+        String description = String.join(" ", words).trim();
+        if (description.isEmpty()) {
+            return invalid("описание не может быть пустым.");
+        }
+        if (ToDoItem.hasControlCharacters(description)) {
+            return invalid("описание не может содержать переводы строк и управляющие символы.");
+        }
+        LocalDate deadline = null;
+        if (options.containsKey("--due")) {
+            try {
+                deadline = LocalDate.parse(options.get("--due"), ToDoItem.DATE_FORMATTER);
+            } catch (DateTimeParseException e) {
+                return invalid("некорректный формат даты. используйте формат дд.мм.гггг");
+            }
+        }
+        TaskPriority priority = TaskPriority.MEDIUM;
+        if (options.containsKey("--priority")) {
+            priority = parsePriority(options.get("--priority"));
+            if (priority == null) {
+                return invalid("неверный приоритет. введите 1, 2 или 3.");
+            }
+        }
+        out.println(taskManager.addNewTask(description, deadline, priority));
+        return EXIT_OK;
+    }
+
+    // list [--order ...] [--open | --done] [--offset N] [--limit N]
+    private int list(List<String> arguments) {
+        Map<String, String> options = new HashMap<>();
+        List<String> words = parseOptions(arguments, Set.of("--order", "--offset", "--limit"),
+                Set.of("--open", "--done"), options);
+        if (words == null) {
+            return EXIT_USAGE;
+        }
+        if (!words.isEmpty()) {
+            return invalid("лишние аргументы: " + String.join(" ", words));
+        }
+        if (options.containsKey("--open") && options.containsKey("--done")) {
+            return invalid("--open и --done не совместимы");
+        }
+        TaskOrder order = null;
+        if (options.containsKey("--order")) {
+            order = parseOrder(options.get("--order"));
+            if (order == null) {
+                return invalid("неизвестный порядок: " + options.get("--order"));
+            }
+        }
+        int offset = parseCount(options.getOrDefault("--offset", "0"));
+        int limit = parseCount(options.getOrDefault("--limit", String.valueOf(Integer.MAX_VALUE)));
+        if (offset < 0 || limit < 0) {
+            return invalid("--offset и --limit должны быть неотрицательными числами");
+        }
+        Predicate<ToDoItem> filter = null;
+        if (options.containsKey("--open")) {
+            filter = item -> !item.isCompleted();
+        } else if (options.containsKey("--done")) {
+            filter = ToDoItem::isCompleted;
+        }
+        printTasks(taskManager.listTasks(order, filter, offset, limit));
+        return EXIT_OK;
+    }
+
+    private int search(List<String> arguments) {
+        String keyword = String.join(" ", arguments).trim();
+        if (keyword.isEmpty()) {
+            return invalid("ключевое слово не может быть пустым.");
+        }
+        printTasks(taskManager.searchByKeyword(keyword).iterator());
+        return EXIT_OK;
+    }
+
+    // done <ID>...: задачи отмечаются выполненными; уже выполненные не меняются
+    private int complete(List<String> ids) {
+        if (ids.isEmpty()) {
+            return invalid("не указан ID задачи");
+        }
+        int exitCode = EXIT_OK;
+        for (String id : ids) {
+            Optional<ToDoItem> task = taskManager.getTaskById(id);
+            if (task.isEmpty()) {
+                err.println("задача не найдена: " + id);
+                exitCode = EXIT_FAILED;
+            } else if (!task.get().isCompleted()) {
+                taskManager.updateTask(task.get(), null, null, null, true);
+            }
+        }
+        return exitCode;
+    }
+
+    private int remove(List<String> ids) {
+        if (ids.isEmpty()) {
+            return invalid("не указан ID задачи");
+        }
+        int exitCode = EXIT_OK;
+        for (String id : ids) {
+            if (!taskManager.removeTask(id)) {
+                err.println("задача не найдена: " + id);
+                exitCode = EXIT_FAILED;
+            }
+        }
+        return exitCode;
+    }
+
+    // печатается число импортированных задач; пропущенные строки сообщаются в err
+    private int importFile(List<String> arguments) {
+        if (arguments.size() != 1) {
+            return invalid("укажите один файл для импорта");
+        }
+        ImportSummary summary = taskManager.importTasks(workingDirectory.resolve(arguments.get(0)));
+        if (summary == null) {
+            return EXIT_FAILED;
+        }
+        out.println(summary.imported());
+        if (summary.skippedReport() != null) {
+            err.println(summary.skippedReport());
+        }
+        if (!summary.saved()) {
+            err.println("импортированные задачи не сохранены в файл");
+            return EXIT_FAILED;
+        }
+        return EXIT_OK;
+    }
+
+    // отчет о времени операций и счетчиках текущего процесса
+    private int stats(List<String> arguments) {
+        if (!arguments.isEmpty()) {
+            return invalid("лишние аргументы: " + String.join(" ", arguments));
+        }
+        out.print(taskManager.metrics().report());
+        return EXIT_OK;
+    }
+
+    // serve [--host адрес] [--port N] [--threads N]: HTTP API до сигнала завершения
+    private int serve(List<String> arguments) {
+        Map<String, String> options = new HashMap<>();
+        List<String> words = parseOptions(arguments, Set.of("--host", "--port", "--threads"), Set.of(), options);
+        if (words == null) {
+            return EXIT_USAGE;
+        }
+        if (!words.isEmpty()) {
+            return invalid("лишние аргументы: " + String.join(" ", words));
+        }
+        int port = parseCount(options.getOrDefault("--port", String.valueOf(TaskHttpServer.DEFAULT_PORT)));
+        int threads = parseCount(options.getOrDefault("--threads", String.valueOf(TaskHttpServer.DEFAULT_THREADS)));
+        if (port < 0 || port > 0xFFFF || threads < 1) {
+            return invalid("неверный порт или число потоков");
+        }
+        TaskHttpServer server;
+        try {
+            server = TaskHttpServer.start(taskManager,
+                    new InetSocketAddress(options.getOrDefault("--host", "localhost"), port), threads);
+        } catch (IOException e) {
+            err.println("не удалось запустить сервер: " + e.getMessage());
+            return EXIT_FAILED;
+        }
+        taskManager.registerMetricsMBean();
+        InetSocketAddress address = server.address();
+        out.println("сервер запущен: http://" + address.getHostString() + ":" + address.getPort() + "/tasks");
+        out.flush();
+        server.awaitShutdown();
+        return EXIT_OK;
+    }
+
+    // слова без параметров; значения параметров из valueOptions и флаги из flagOptions
+    // попадают в options. null, если параметр неизвестен или у него нет значения
+    private List<String> parseOptions(List<String> arguments, Set<String> valueOptions,
+                                             Set<String> flagOptions, Map<String, String> options) {
+        List<String> words = new ArrayList<>();
+        for (int i = 0; i < arguments.size(); i++) {
+            String argument = arguments.get(i);
+            if (!argument.startsWith("--")) {
+                words.add(argument);
+            } else if (flagOptions.contains(argument)) {
+                options.put(argument, "");
+            } else if (valueOptions.contains(argument) && i + 1 < arguments.size()) {
+                options.put(argument, arguments.get(++i));
+            } else {
+                invalid("неизвестный параметр или нет значения: " + argument);
+                return null;
+            }
+        }
+        return words;
+    }
+
+    static TaskPriority parsePriority(String number) {
+        for (TaskPriority priority : TaskPriority.values()) {
+            if (priority.getNumber().equals(number)) {
+                return priority;
+            }
+        }
+        return null;
+    }
+
+    static DurabilityLevel parseDurability(String name) {
+        for (DurabilityLevel level : DurabilityLevel.values()) {
+            if (level.name().equalsIgnoreCase(name)) {
+                return level;
+            }
+        }
+        return null;
+    }
+
+    static TaskOrder parseOrder(String name) {
+        for (TaskOrder order : TaskOrder.values()) {
+            if (order.name().equalsIgnoreCase(name)) {
+                return order;
+            }
+        }
+        return null;
+    }
+
+    // -1 для нечислового значения
+    static int parseCount(String value) {
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private void printTasks(Iterator<ToDoItem> tasks) {
+        renderer.print(tasks, out);
+    }
+}
@@ -0,0 +1,126 @@
+package todo;
+
+import java.time.LocalDate;
+import java.util.*;
+import java.util.function.Consumer;
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+// двоичный снимок задач: заголовок MAGIC, версия, порядок задач (с версии 2), последний
+// выданный ID (с версии 3) и число записей, затем записи
+// "ID, описание (длина + UTF-8), байт флагов, срок в днях от эпохи"
+class BinaryTaskCodec {
+    static final int MAGIC = 0x54444F42; // "TDOB"
+    private static final int VERSION = 3;
+    private static final int FIRST_VERSION = 1;
+    private static final int COMPLETED_FLAG = 0x80;
+    private static final int PRIORITY_MASK = 0x03;
+    private static final int NO_DEADLINE = Integer.MIN_VALUE;
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private BinaryTaskCodec() {}
+
+    static boolean isBinaryFile(Path path) throws IOException {
+        try (DataInputStream input = new DataInputStream(Files.newInputStream(path))) {
+            return input.readInt() == MAGIC;
+        } catch (EOFException e) {
+            return false;
+        }
+    }
+
+    // поток не закрывается, чтобы вызывающий мог сбросить файл на диск
+    static void write(OutputStream stream, Collection<ToDoItem> items, StorageHeader header) throws IOException {
+        try {
+            DataOutputStream output = new DataOutputStream(new BufferedOutputStream(stream, BUFFER_SIZE));
+            output.writeInt(MAGIC);
+            output.writeByte(VERSION);
+            output.writeByte(header.order().ordinal());
+            output.writeLong(header.lastTaskId());
+            output.writeInt(items.size());
+            for (ToDoItem item : items) {
+                writeString(output, item.getTaskId());
+                writeString(output, item.getTaskDescription());
+                int flags = item.getPriorityLevel().ordinal() | (item.isCompleted() ? COMPLETED_FLAG : 0);
+                output.writeByte(flags);
+                output.writeInt(item.getDeadline() != null
+                        ? Math.toIntExact(item.getDeadline().toEpochDay()) : NO_DEADLINE);
+            }
+            output.flush();
+        } catch (ArithmeticException e) {
+            throw new IOException("срок выполнения вне допустимого диапазона", e);
+        }
+    }
+
+    // возвращается заголовок файла
+    static StorageHeader read(Path path, Consumer<ToDoItem> sink) throws IOException {
+        try (DataInputStream input = new DataInputStream(
+                new BufferedInputStream(Files.newInputStream(path), BUFFER_SIZE))) {
+            if (input.readInt() != MAGIC) {
+                throw new IOException("неверный заголовок двоичного файла");
+            }
+            int version = input.readUnsignedByte();
+            if (version < FIRST_VERSION || version > VERSION) {
+                throw new IOException("неподдерживаемая версия двоичного файла: " + version);
+            }
+            TaskOrder order = TaskOrder.INSERTION;
+            if (version >= 2) {
+                int orderIndex = input.readUnsignedByte();
+                if (orderIndex >= TaskOrder.values().length) {
+                    throw new IOException("неизвестный порядок задач: " + orderIndex);
+                }
+                order = TaskOrder.values()[orderIndex];
+            }
+            long lastTaskId = version >= 3 ? Math.max(0, input.readLong()) : 0;
+            int count = input.readInt();
+            byte[] buffer = new byte[256];
+            TaskPriority[] priorities = TaskPriority.values();
+            for (int i = 0; i < count; i++) {
+                String id = readString(input, buffer);
+                String description = readString(input, buffer);
+                int flags = input.readUnsignedByte();
+                int epochDay = input.readInt();
+                if ((flags & PRIORITY_MASK) >= priorities.length || id.isEmpty()) {
+                    throw new IOException("поврежденная запись " + (i + 1));
+                }
+                LocalDate deadline = epochDay != NO_DEADLINE ? LocalDate.ofEpochDay(epochDay) : null;
+                sink.accept(new ToDoItem(id, description, deadline, priorities[flags & PRIORITY_MASK],
+                        (flags & COMPLETED_FLAG) != 0));
+            }
+            return new StorageHeader(order, lastTaskId);
+        }
+    }
+
+    // длина строки записывается по 7 бит на байт: короткие строки занимают один байт длины
+    private static void writeString(DataOutputStream output, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        int length = bytes.length;
+        while ((length & ~0x7F) != 0) {
+            output.writeByte((length & 0x7F) | 0x80);
+            length >>>= 7;
+        }
+        output.writeByte(length);
+        output.write(bytes);
+    }
+
+    private static String readString(DataInputStream input, byte[] buffer) throws IOException {
+        int length = 0;
+        for (int shift = 0; ; shift += 7) {
+            if (shift > 28) {
+                throw new IOException("неверная длина строки");
+            }
+            int b = input.readUnsignedByte();
+            length |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                break;
+            }
+        }
+        if (length < 0) {
+            throw new IOException("неверная длина строки");
+        }
+        byte[] bytes = length <= buffer.length ? buffer : new byte[length];
+        input.readFully(bytes, 0, length);
+        return new String(bytes, 0, length, StandardCharsets.UTF_8);
+    }
+}
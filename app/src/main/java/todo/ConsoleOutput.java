@@ -0,0 +1,69 @@
+package todo;
+
+import java.io.*;
+import java.nio.charset.Charset;
+
+// общий вывод приложения: текст копится в буфере и уходит в консоль одной записью
+// перед чтением ввода и при выходе, а не системным вызовом на каждую строку.
+// Кодировка та же, что у System.out; для тестов вывод заменяется через setWriter.
+// Ошибки идут в System.err (setErrorStream) через error(), который сначала сбрасывает буфер
+final class ConsoleOutput {
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private static volatile PrintWriter writer = createDefaultWriter();
+    private static volatile PrintStream errorStream = System.err;
+
+    private ConsoleOutput() {}
+
+    private static PrintWriter createDefaultWriter() {
+        Console console = System.console();
+        Charset charset = console != null ? console.charset() : Charset.defaultCharset();
+        return new PrintWriter(new BufferedWriter(
+                new OutputStreamWriter(new FileOutputStream(FileDescriptor.out), charset), BUFFER_SIZE));
+    }
+
+    static PrintWriter writer() {
+        return writer;
+    }
+
+    // замена вывода; накопленный текст сбрасывается в прежний вывод
+    static void setWriter(PrintWriter newWriter) {
+        writer.flush();
+        writer = newWriter;
+    }
+
+    static void print(String text) {
+        writer.print(text);
+    }
+
+    static void println() {
+        writer.println();
+    }
+
+    static void println(String text) {
+        writer.println(text);
+    }
+
+    static void println(Object value) {
+        writer.println(value);
+    }
+
+    static void print(CharSequence text) {
+        writer.append(text);
+    }
+
+    static void flush() {
+        writer.flush();
+    }
+
+    // сообщение об ошибке: накопленный вывод сначала уходит в консоль, поэтому
+    // строки выводятся в том же порядке, что и при записи без буфера
+    static void error(String text) {
+        writer.flush();
+        errorStream.println(text);
+    }
+
+    static void setErrorStream(PrintStream newErrorStream) {
+        errorStream = newErrorStream;
+    }
+}
@@ -0,0 +1,11 @@
+package todo;
+
+// надежность записи файла задач: чем надежнее, тем дольше запись
+enum DurabilityLevel {
+    // файл переписывается на месте; сбой во время записи оставляет его неполным
+    NONE,
+    // запись во временный файл и атомарная замена; переживает сбой процесса
+    FLUSH,
+    // как FLUSH, но файл и каталог сбрасываются на диск; переживает отключение питания
+    FSYNC
+}
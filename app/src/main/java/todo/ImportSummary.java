@@ -0,0 +1,18 @@
+package todo;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+// итог импорта: число добавленных задач, число пропущенных строк и номера первых из них;
+// saved - задачи записаны в файл задач (иначе они есть только в памяти)
+record ImportSummary(int imported, int skipped, List<Integer> skippedLines, boolean saved) {
+    // сообщение о пропущенных строках для меню и команд; null, если пропусков нет
+    String skippedReport() {
+        if (skipped == 0) {
+            return null;
+        }
+        return "пропущено строк: " + skipped + " (номера: "
+                + skippedLines.stream().map(String::valueOf).collect(Collectors.joining(", "))
+                + (skipped > skippedLines.size() ? ", ..." : "") + ")";
+    }
+}
@@ -0,0 +1,62 @@
+package todo;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+// триграммный индекс описаний: подстроку ищут только среди задач,
+// в описании которых есть все ее триграммы. Индекс меняет один писатель,
+// читатели обходят его без блокировки и проверяют кандидатов по снимку задач
+class KeywordIndex {
+    static final int TRIGRAM_LENGTH = 3;
+
+    private final Map<Long, Set<String>> idsByTrigram = new ConcurrentHashMap<>();
+
+    // описания передаются в нижнем регистре
+    void add(String taskId, String description) {
+        for (int i = 0; i + TRIGRAM_LENGTH <= description.length(); i++) {
+            idsByTrigram.computeIfAbsent(trigram(description, i), key -> ConcurrentHashMap.newKeySet()).add(taskId);
+        }
+    }
+
+    // удаление триграмм описания, кроме триграмм retainedDescription (он может быть null)
+    void remove(String taskId, String description, String retainedDescription) {
+        Set<Long> retained = new HashSet<>();
+        if (retainedDescription != null) {
+            for (int i = 0; i + TRIGRAM_LENGTH <= retainedDescription.length(); i++) {
+                retained.add(trigram(retainedDescription, i));
+            }
+        }
+        for (int i = 0; i + TRIGRAM_LENGTH <= description.length(); i++) {
+            long key = trigram(description, i);
+            if (retained.contains(key)) {
+                continue;
+            }
+            Set<String> ids = idsByTrigram.get(key);
+            if (ids != null) {
+                ids.remove(taskId);
+                if (ids.isEmpty()) {
+                    idsByTrigram.remove(key);
+                }
+            }
+        }
+    }
+
+    // ID задач, в описании которых есть все триграммы keyword; keyword не короче TRIGRAM_LENGTH
+    Collection<String> candidates(String keyword) {
+        Set<String> candidates = null;
+        for (int i = 0; i + TRIGRAM_LENGTH <= keyword.length(); i++) {
+            Set<String> ids = idsByTrigram.get(trigram(keyword, i));
+            if (ids == null) {
+                return List.of();
+            }
+            if (candidates == null || ids.size() < candidates.size()) {
+                candidates = ids;
+            }
+        }
+        return candidates;
+    }
+
+    private static long trigram(String text, int start) {
+        return ((long) text.charAt(start) << 32) | ((long) text.charAt(start + 1) << 16) | text.charAt(start + 2);
+    }
+}
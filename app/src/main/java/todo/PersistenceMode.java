@@ -0,0 +1,11 @@
+package todo;
+
+// способ сохранения изменений в файл задач
+enum PersistenceMode {
+    // файл переписывается после каждого изменения
+    IMMEDIATE,
+    // изменения дописываются в журнал, файл переписывается при уплотнении
+    JOURNAL,
+    // изменения накапливаются и записываются в файл одной перезаписью в фоне
+    WRITE_BEHIND
+}
@@ -0,0 +1,289 @@
+package todo;
+
+import java.util.*;
+import java.util.function.BiConsumer;
+
+// неизменяемое отображение - префиксное дерево по 5 битам хеша ключа (HAMT) с копированием пути:
+// поиск и изменение проходят не больше 7 уровней независимо от числа элементов,
+// изменение создает новые узлы только на своем пути, остальные узлы общие со старой версией
+final class PersistentHashMap<K, V> {
+    private static final int BITS = 5;
+    private static final int MASK = (1 << BITS) - 1;
+    private static final PersistentHashMap<?, ?> EMPTY = new PersistentHashMap<>(null, 0);
+
+    private record Entry<K, V>(int hash, K key, V value) {
+    }
+
+    private interface Node<K, V> {
+        V get(K key, int hash, int shift);
+
+        // added[0] становится true, если ключа еще не было
+        Node<K, V> with(Entry<K, V> entry, int shift, boolean[] added);
+
+        // отсутствующий ключ возвращает тот же узел, опустевший узел - null
+        Node<K, V> without(K key, int hash, int shift);
+
+        // единственный элемент узла без вложенных узлов, иначе null
+        Entry<K, V> single();
+
+        void forEach(BiConsumer<? super K, ? super V> action);
+    }
+
+    // ячейки по битам bitmap: Entry или вложенный Node следующих 5 бит хеша
+    private static final class BitmapNode<K, V> implements Node<K, V> {
+        final int bitmap;
+        final Object[] slots;
+
+        BitmapNode(int bitmap, Object[] slots) {
+            this.bitmap = bitmap;
+            this.slots = slots;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public V get(K key, int hash, int shift) {
+            int bit = 1 << ((hash >>> shift) & MASK);
+            if ((bitmap & bit) == 0) {
+                return null;
+            }
+            Object slot = slots[Integer.bitCount(bitmap & (bit - 1))];
+            if (slot instanceof Entry<?, ?> entry) {
+                return entry.hash() == hash && entry.key().equals(key) ? (V) entry.value() : null;
+            }
+            return ((Node<K, V>) slot).get(key, hash, shift + BITS);
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public Node<K, V> with(Entry<K, V> entry, int shift, boolean[] added) {
+            int bit = 1 << ((entry.hash() >>> shift) & MASK);
+            int index = Integer.bitCount(bitmap & (bit - 1));
+            if ((bitmap & bit) == 0) {
+                added[0] = true;
+                Object[] newSlots = new Object[slots.length + 1];
+                System.arraycopy(slots, 0, newSlots, 0, index);
+                newSlots[index] = entry;
+                System.arraycopy(slots, index, newSlots, index + 1, slots.length - index);
+                return new BitmapNode<>(bitmap | bit, newSlots);
+            }
+            Object slot = slots[index];
+            Object newSlot;
+            if (slot instanceof Entry<?, ?> existing) {
+                if (existing.hash() == entry.hash() && existing.key().equals(entry.key())) {
+                    if (existing.value() == entry.value()) {
+                        return this;
+                    }
+                    newSlot = entry;
+                } else {
+                    added[0] = true;
+                    newSlot = merge((Entry<K, V>) existing, entry, shift + BITS);
+                }
+            } else {
+                Node<K, V> child = (Node<K, V>) slot;
+                newSlot = child.with(entry, shift + BITS, added);
+                if (newSlot == child) {
+                    return this;
+                }
+            }
+            Object[] newSlots = slots.clone();
+            newSlots[index] = newSlot;
+            return new BitmapNode<>(bitmap, newSlots);
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public Node<K, V> without(K key, int hash, int shift) {
+            int bit = 1 << ((hash >>> shift) & MASK);
+            if ((bitmap & bit) == 0) {
+                return this;
+            }
+            int index = Integer.bitCount(bitmap & (bit - 1));
+            Object slot = slots[index];
+            if (slot instanceof Entry<?, ?> entry) {
+                if (entry.hash() != hash || !entry.key().equals(key)) {
+                    return this;
+                }
+                return removeSlot(bit, index);
+            }
+            Node<K, V> child = (Node<K, V>) slot;
+            Node<K, V> newChild = child.without(key, hash, shift + BITS);
+            if (newChild == child) {
+                return this;
+            }
+            if (newChild == null) {
+                return removeSlot(bit, index);
+            }
+            // узел из одного элемента заменяется самим элементом
+            Entry<K, V> single = newChild.single();
+            Object[] newSlots = slots.clone();
+            newSlots[index] = single != null ? single : newChild;
+            return new BitmapNode<>(bitmap, newSlots);
+        }
+
+        private Node<K, V> removeSlot(int bit, int index) {
+            if (slots.length == 1) {
+                return null;
+            }
+            Object[] newSlots = new Object[slots.length - 1];
+            System.arraycopy(slots, 0, newSlots, 0, index);
+            System.arraycopy(slots, index + 1, newSlots, index, slots.length - index - 1);
+            return new BitmapNode<>(bitmap & ~bit, newSlots);
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public Entry<K, V> single() {
+            return slots.length == 1 && slots[0] instanceof Entry<?, ?> entry ? (Entry<K, V>) entry : null;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public void forEach(BiConsumer<? super K, ? super V> action) {
+            for (Object slot : slots) {
+                if (slot instanceof Entry<?, ?> entry) {
+                    action.accept((K) entry.key(), (V) entry.value());
+                } else {
+                    ((Node<K, V>) slot).forEach(action);
+                }
+            }
+        }
+    }
+
+    // ключи с одинаковым хешем, когда его биты закончились
+    private static final class CollisionNode<K, V> implements Node<K, V> {
+        final int hash;
+        final List<Entry<K, V>> entries;
+
+        CollisionNode(int hash, List<Entry<K, V>> entries) {
+            this.hash = hash;
+            this.entries = entries;
+        }
+
+        private int indexOf(K key) {
+            for (int i = 0; i < entries.size(); i++) {
+                if (entries.get(i).key().equals(key)) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        @Override
+        public V get(K key, int hash, int shift) {
+            int index = hash == this.hash ? indexOf(key) : -1;
+            return index >= 0 ? entries.get(index).value() : null;
+        }
+
+        @Override
+        public Node<K, V> with(Entry<K, V> entry, int shift, boolean[] added) {
+            List<Entry<K, V>> newEntries = new ArrayList<>(entries);
+            int index = indexOf(entry.key());
+            if (index >= 0) {
+                newEntries.set(index, entry);
+            } else {
+                added[0] = true;
+                newEntries.add(entry);
+            }
+            return new CollisionNode<>(hash, newEntries);
+        }
+
+        @Override
+        public Node<K, V> without(K key, int hash, int shift) {
+            int index = hash == this.hash ? indexOf(key) : -1;
+            if (index < 0) {
+                return this;
+            }
+            if (entries.size() == 1) {
+                return null;
+            }
+            List<Entry<K, V>> newEntries = new ArrayList<>(entries);
+            newEntries.remove(index);
+            return new CollisionNode<>(hash, newEntries);
+        }
+
+        @Override
+        public Entry<K, V> single() {
+            return entries.size() == 1 ? entries.get(0) : null;
+        }
+
+        @Override
+        public void forEach(BiConsumer<? super K, ? super V> action) {
+            entries.forEach(entry -> action.accept(entry.key(), entry.value()));
+        }
+    }
+
+    private final Node<K, V> root;
+    private final int size;
+
+    private PersistentHashMap(Node<K, V> root, int size) {
+        this.root = root;
+        this.size = size;
+    }
+
+    @SuppressWarnings("unchecked")
+    static <K, V> PersistentHashMap<K, V> empty() {
+        return (PersistentHashMap<K, V>) EMPTY;
+    }
+
+    int size() {
+        return size;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    // значение по ключу или null
+    V get(K key) {
+        return root != null ? root.get(key, hash(key), 0) : null;
+    }
+
+    // добавление или замена значения по ключу
+    PersistentHashMap<K, V> with(K key, V value) {
+        Entry<K, V> entry = new Entry<>(hash(key), key, value);
+        if (root == null) {
+            return new PersistentHashMap<>(new BitmapNode<K, V>(0, new Object[0]).with(entry, 0, new boolean[1]), 1);
+        }
+        boolean[] added = new boolean[1];
+        Node<K, V> newRoot = root.with(entry, 0, added);
+        return newRoot == root ? this : new PersistentHashMap<>(newRoot, added[0] ? size + 1 : size);
+    }
+
+    PersistentHashMap<K, V> without(K key) {
+        if (root == null) {
+            return this;
+        }
+        Node<K, V> newRoot = root.without(key, hash(key), 0);
+        if (newRoot == root) {
+            return this;
+        }
+        return newRoot == null ? empty() : new PersistentHashMap<>(newRoot, size - 1);
+    }
+
+    // обход в порядке хешей
+    void forEach(BiConsumer<? super K, ? super V> action) {
+        if (root != null) {
+            root.forEach(action);
+        }
+    }
+
+    // старшие биты хеша подмешиваются к младшим, с которых начинается дерево
+    private static int hash(Object key) {
+        int hash = key.hashCode();
+        return hash ^ (hash >>> 16);
+    }
+
+    // узел для двух различных ключей, начиная с уровня shift
+    private static <K, V> Node<K, V> merge(Entry<K, V> entry1, Entry<K, V> entry2, int shift) {
+        if (shift >= Integer.SIZE) {
+            return new CollisionNode<>(entry1.hash(), List.of(entry1, entry2));
+        }
+        int index1 = (entry1.hash() >>> shift) & MASK;
+        int index2 = (entry2.hash() >>> shift) & MASK;
+        if (index1 == index2) {
+            return new BitmapNode<>(1 << index1, new Object[] {merge(entry1, entry2, shift + BITS)});
+        }
+        Object[] slots = index1 < index2 ? new Object[] {entry1, entry2} : new Object[] {entry2, entry1};
+        return new BitmapNode<>((1 << index1) | (1 << index2), slots);
+    }
+}
@@ -0,0 +1,208 @@
+package todo;
+
+import java.util.*;
+import java.util.function.ToIntFunction;
+
+// неизменяемое упорядоченное множество - AVL-дерево с копированием пути:
+// изменение создает O(log n) новых узлов, остальные узлы общие со старой версией.
+// Размеры поддеревьев позволяют начать обход с любой позиции за O(log n)
+final class PersistentSortedSet<T> implements Iterable<T> {
+    private static final class Node<T> {
+        final T value;
+        final Node<T> left;
+        final Node<T> right;
+        final int height;
+        final int size;
+
+        Node(T value, Node<T> left, Node<T> right) {
+            this.value = value;
+            this.left = left;
+            this.right = right;
+            this.height = 1 + Math.max(height(left), height(right));
+            this.size = 1 + size(left) + size(right);
+        }
+    }
+
+    private final Comparator<? super T> comparator;
+    private final Node<T> root;
+
+    private PersistentSortedSet(Comparator<? super T> comparator, Node<T> root) {
+        this.comparator = comparator;
+        this.root = root;
+    }
+
+    static <T> PersistentSortedSet<T> empty(Comparator<? super T> comparator) {
+        return new PersistentSortedSet<>(comparator, null);
+    }
+
+    // построение за O(n) из различных элементов, уже упорядоченных comparator
+    static <T> PersistentSortedSet<T> fromSorted(Comparator<? super T> comparator, List<T> sorted) {
+        return new PersistentSortedSet<>(comparator, build(sorted, 0, sorted.size()));
+    }
+
+    private static <T> Node<T> build(List<T> sorted, int from, int to) {
+        if (from >= to) {
+            return null;
+        }
+        int middle = (from + to) >>> 1;
+        return new Node<>(sorted.get(middle), build(sorted, from, middle), build(sorted, middle + 1, to));
+    }
+
+    int size() {
+        return size(root);
+    }
+
+    boolean isEmpty() {
+        return root == null;
+    }
+
+    // высота дерева; у AVL-дерева из n элементов она не больше 1.44 * log2(n + 2)
+    int height() {
+        return height(root);
+    }
+
+    // добавление элемента; равный по comparator элемент заменяется
+    PersistentSortedSet<T> with(T value) {
+        return new PersistentSortedSet<>(comparator, insert(root, value));
+    }
+
+    PersistentSortedSet<T> without(T value) {
+        Node<T> newRoot = delete(root, value);
+        return newRoot == root ? this : new PersistentSortedSet<>(comparator, newRoot);
+    }
+
+    // поиск по ключу, которого нет в элементах: probe сравнивает ключ с элементом
+    T find(ToIntFunction<? super T> probe) {
+        Node<T> node = root;
+        while (node != null) {
+            int comparison = probe.applyAsInt(node.value);
+            if (comparison == 0) {
+                return node.value;
+            }
+            node = comparison < 0 ? node.left : node.right;
+        }
+        return null;
+    }
+
+    @Override
+    public Iterator<T> iterator() {
+        return iterator(0);
+    }
+
+    // обход по порядку начиная с элемента с номером fromIndex
+    Iterator<T> iterator(int fromIndex) {
+        Deque<Node<T>> path = new ArrayDeque<>();
+        Node<T> node = root;
+        int skip = fromIndex;
+        while (node != null) {
+            int leftSize = size(node.left);
+            if (skip < leftSize) {
+                path.push(node);
+                node = node.left;
+            } else if (skip == leftSize) {
+                path.push(node);
+                break;
+            } else {
+                skip -= leftSize + 1;
+                node = node.right;
+            }
+        }
+        return new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                return !path.isEmpty();
+            }
+
+            @Override
+            public T next() {
+                if (path.isEmpty()) {
+                    throw new NoSuchElementException();
+                }
+                Node<T> current = path.pop();
+                for (Node<T> next = current.right; next != null; next = next.left) {
+                    path.push(next);
+                }
+                return current.value;
+            }
+        };
+    }
+
+    private Node<T> insert(Node<T> node, T value) {
+        if (node == null) {
+            return new Node<>(value, null, null);
+        }
+        int comparison = comparator.compare(value, node.value);
+        if (comparison < 0) {
+            return balance(node.value, insert(node.left, value), node.right);
+        }
+        if (comparison > 0) {
+            return balance(node.value, node.left, insert(node.right, value));
+        }
+        return new Node<>(value, node.left, node.right);
+    }
+
+    // отсутствующий элемент возвращает тот же узел, чтобы не копировать путь
+    private Node<T> delete(Node<T> node, T value) {
+        if (node == null) {
+            return null;
+        }
+        int comparison = comparator.compare(value, node.value);
+        if (comparison < 0) {
+            Node<T> left = delete(node.left, value);
+            return left == node.left ? node : balance(node.value, left, node.right);
+        }
+        if (comparison > 0) {
+            Node<T> right = delete(node.right, value);
+            return right == node.right ? node : balance(node.value, node.left, right);
+        }
+        if (node.left == null) {
+            return node.right;
+        }
+        if (node.right == null) {
+            return node.left;
+        }
+        Node<T> successor = node.right;
+        while (successor.left != null) {
+            successor = successor.left;
+        }
+        return balance(successor.value, node.left, deleteFirst(node.right));
+    }
+
+    private static <T> Node<T> deleteFirst(Node<T> node) {
+        if (node.left == null) {
+            return node.right;
+        }
+        return balance(node.value, deleteFirst(node.left), node.right);
+    }
+
+    // узел с поддеревьями, высоты которых отличаются не больше чем на 2
+    private static <T> Node<T> balance(T value, Node<T> left, Node<T> right) {
+        int leftHeight = height(left);
+        int rightHeight = height(right);
+        if (leftHeight > rightHeight + 1) {
+            if (height(left.left) >= height(left.right)) {
+                return new Node<>(left.value, left.left, new Node<>(value, left.right, right));
+            }
+            return new Node<>(left.right.value,
+                    new Node<>(left.value, left.left, left.right.left),
+                    new Node<>(value, left.right.right, right));
+        }
+        if (rightHeight > leftHeight + 1) {
+            if (height(right.right) >= height(right.left)) {
+                return new Node<>(right.value, new Node<>(value, left, right.left), right.right);
+            }
+            return new Node<>(right.left.value,
+                    new Node<>(value, left, right.left.left),
+                    new Node<>(right.value, right.left.right, right.right));
+        }
+        return new Node<>(value, left, right);
+    }
+
+    private static int height(Node<?> node) {
+        return node != null ? node.height : 0;
+    }
+
+    private static int size(Node<?> node) {
+        return node != null ? node.size : 0;
+    }
+}
@@ -0,0 +1,21 @@
+package todo;
+
+enum StorageFormat {
+    TEXT("текстовый"),
+    BINARY("двоичный");
+
+    private final String russianName;
+
+    StorageFormat(String russianName) {
+        this.russianName = russianName;
+    }
+
+    public String getRussianName() {
+        return russianName;
+    }
+
+    @Override
+    public String toString() {
+        return russianName;
+    }
+}
@@ -0,0 +1,7 @@
+package todo;
+
+// заголовок файла задач: порядок задач и наибольший выданный ID, который
+// не выдается повторно даже после удаления задачи с этим ID
+record StorageHeader(TaskOrder order, long lastTaskId) {
+    static final StorageHeader DEFAULT = new StorageHeader(TaskOrder.INSERTION, 0);
+}
@@ -0,0 +1,325 @@
+package todo;
+
+import java.util.*;
+import java.io.*;
+import java.net.ProtocolException;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+// демон для команд без меню: держит загруженный TaskManager и принимает команды через
+// Unix-сокет, поэтому повторный вызов ToDoApp стоит обмена по сокету, а не чтения файла.
+// Запрос: рабочий каталог клиента, признак сценария и строки (слова команды или строки
+// сценария). Ответ: кадры "тип, длина, UTF-8" с выводом и ошибками по мере выполнения,
+// последним - код выхода
+final class TaskDaemon {
+    // демон не запущен или сокет остался от прерванного демона
+    static final int NOT_RUNNING = -1;
+    private static final byte OUT_FRAME = 1;
+    private static final byte ERR_FRAME = 2;
+    private static final byte EXIT_FRAME = 3;
+    private static final int FRAME_CHARS = 32 * 1024;
+    // размеры в запросе задает клиент, поэтому они проверяются до выделения памяти;
+    // кадр ответа (не больше FRAME_CHARS символов) тоже укладывается в MAX_STRING_BYTES
+    static final int MAX_LINES = 100_000;
+    static final int MAX_STRING_BYTES = 1024 * 1024;
+    private static final int STREAM_BUFFER_SIZE = 64 * 1024;
+    private static final long CLOSE_TIMEOUT_MILLIS = 30_000;
+
+    private TaskDaemon() {}
+
+    // прием команд до сигнала завершения (Ctrl+C, kill); TaskManager закрывает вызывающий
+    static int run(TaskManager taskManager, Path socketPath, PrintWriter out, PrintWriter err) {
+        ServerSocketChannel server;
+        try {
+            server = bind(socketPath);
+        } catch (IOException e) {
+            err.println("не удалось запустить демон: " + socketPath + " - " + e.getMessage());
+            return BatchCommands.EXIT_FAILED;
+        }
+        if (server == null) {
+            err.println("демон уже запущен: " + socketPath);
+            return BatchCommands.EXIT_FAILED;
+        }
+        ExecutorService executor = Executors.newCachedThreadPool(new ThreadFactory() {
+            private int count;
+
+            @Override
+            public synchronized Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "daemon-client-" + ++count);
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        // закрытый сокет прерывает accept; обработчик ждет, пока вызывающий закроет TaskManager
+        Thread caller = Thread.currentThread();
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            try {
+                server.close();
+                caller.join(CLOSE_TIMEOUT_MILLIS);
+            } catch (IOException e) {
+                // сокет уже закрыт
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }, "daemon-shutdown"));
+        out.println("демон запущен: " + socketPath);
+        out.flush();
+        try {
+            while (true) {
+                SocketChannel client = server.accept();
+                executor.execute(() -> serveClient(taskManager, client));
+            }
+        } catch (ClosedChannelException e) {
+            // остановка по сигналу завершения
+        } catch (IOException e) {
+            err.println("ошибка демона: " + e.getMessage());
+        } finally {
+            executor.shutdown();
+            try {
+                executor.awaitTermination(CLOSE_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            try {
+                Files.deleteIfExists(socketPath);
+            } catch (IOException e) {
+                err.println("не удалось удалить сокет: " + socketPath);
+            }
+        }
+        return BatchCommands.EXIT_OK;
+    }
+
+    // null, если на сокете уже отвечает другой демон; сокет прерванного демона удаляется
+    private static ServerSocketChannel bind(Path socketPath) throws IOException {
+        UnixDomainSocketAddress address = UnixDomainSocketAddress.of(socketPath);
+        if (Files.exists(socketPath)) {
+            try {
+                SocketChannel.open(address).close();
+                return null;
+            } catch (IOException e) {
+                Files.delete(socketPath);
+            }
+        }
+        ServerSocketChannel server = ServerSocketChannel.open(StandardProtocolFamily.UNIX);
+        try {
+            server.bind(address);
+        } catch (IOException e) {
+            server.close();
+            throw e;
+        }
+        return server;
+    }
+
+    private static void serveClient(TaskManager taskManager, SocketChannel client) {
+        try (client) {
+            DataInputStream input = new DataInputStream(
+                    new BufferedInputStream(Channels.newInputStream(client), STREAM_BUFFER_SIZE));
+            FrameOutput frames = new FrameOutput(new DataOutputStream(
+                    new BufferedOutputStream(Channels.newOutputStream(client), STREAM_BUFFER_SIZE)));
+            PrintWriter out = new PrintWriter(frames.writer(OUT_FRAME));
+            PrintWriter err = new PrintWriter(frames.writer(ERR_FRAME));
+            Path workingDirectory;
+            boolean script;
+            List<String> lines;
+            try {
+                workingDirectory = Path.of(readString(input));
+                script = input.readBoolean();
+                int count = input.readInt();
+                if (count < 0 || count > MAX_LINES) {
+                    throw new ProtocolException("строк в запросе " + count + ", допускается не больше " + MAX_LINES);
+                }
+                lines = new ArrayList<>(count);
+                for (int i = 0; i < count; i++) {
+                    lines.add(readString(input));
+                }
+            } catch (ProtocolException e) {
+                // остаток запроса не читается: ответ отправляется сразу
+                err.println("неверный запрос: " + e.getMessage());
+                err.flush();
+                frames.finish(BatchCommands.EXIT_USAGE);
+                return;
+            }
+
+            BatchCommands commands = new BatchCommands(taskManager, out, err, workingDirectory, true);
+            int exitCode;
+            if (script) {
+                exitCode = commands.runScript(lines);
+            } else if (lines.isEmpty()) {
+                exitCode = BatchCommands.EXIT_USAGE;
+            } else {
+                exitCode = commands.execute(lines);
+            }
+            out.flush();
+            err.flush();
+            frames.finish(exitCode);
+        } catch (EOFException e) {
+            // соединение закрыто без запроса: так другой демон проверяет, занят ли сокет
+        } catch (IOException e) {
+            System.err.println("ошибка соединения с клиентом: " + e.getMessage());
+        } catch (RuntimeException e) {
+            System.err.println("ошибка выполнения команды: " + e);
+        }
+    }
+
+    // передача команды демону; NOT_RUNNING, если демон не отвечает и команду надо выполнить самому
+    static int forward(Path socketPath, boolean script, List<String> lines, PrintWriter out, PrintWriter err) {
+        if (!Files.exists(socketPath)) {
+            return NOT_RUNNING;
+        }
+        if (lines.size() > MAX_LINES) {
+            err.println("демон принимает не больше " + MAX_LINES + " строк, передано " + lines.size());
+            return BatchCommands.EXIT_USAGE;
+        }
+        SocketChannel channel;
+        try {
+            channel = SocketChannel.open(UnixDomainSocketAddress.of(socketPath));
+        } catch (IOException e) {
+            return NOT_RUNNING;
+        }
+        try (channel) {
+            DataOutputStream output = new DataOutputStream(
+                    new BufferedOutputStream(Channels.newOutputStream(channel), STREAM_BUFFER_SIZE));
+            writeString(output, Path.of("").toAbsolutePath().toString());
+            output.writeBoolean(script);
+            output.writeInt(lines.size());
+            for (String line : lines) {
+                writeString(output, line);
+            }
+            output.flush();
+
+            DataInputStream input = new DataInputStream(
+                    new BufferedInputStream(Channels.newInputStream(channel), STREAM_BUFFER_SIZE));
+            while (true) {
+                byte type = input.readByte();
+                if (type == EXIT_FRAME) {
+                    return input.readInt();
+                }
+                String text = readString(input);
+                if (type == ERR_FRAME) {
+                    out.flush();
+                    err.print(text);
+                    err.flush();
+                } else {
+                    out.print(text);
+                }
+            }
+        } catch (ProtocolException e) {
+            err.println("команда не передана демону: " + e.getMessage());
+            return BatchCommands.EXIT_USAGE;
+        } catch (IOException e) {
+            err.println("ошибка связи с демоном: " + socketPath + " - " + e.getMessage());
+            return BatchCommands.EXIT_FAILED;
+        }
+    }
+
+    private static void writeString(DataOutputStream output, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > MAX_STRING_BYTES) {
+            throw new ProtocolException("строка длиной " + bytes.length + " байт, допускается не больше " + MAX_STRING_BYTES);
+        }
+        output.writeInt(bytes.length);
+        output.write(bytes);
+    }
+
+    private static String readString(DataInputStream input) throws IOException {
+        int length = input.readInt();
+        if (length < 0 || length > MAX_STRING_BYTES) {
+            throw new ProtocolException("строка длиной " + length + " байт, допускается не больше " + MAX_STRING_BYTES);
+        }
+        byte[] bytes = new byte[length];
+        input.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    // вывод и ошибки команды в одном потоке кадров; смена типа закрывает текущий кадр,
+    // поэтому клиент получает их в том же порядке, в каком они выводились
+    private static final class FrameOutput {
+        private final DataOutputStream output;
+        private final StringBuilder buffer = new StringBuilder();
+        private byte bufferedType;
+
+        FrameOutput(DataOutputStream output) {
+            this.output = output;
+        }
+
+        Writer writer(byte type) {
+            return new Writer() {
+                @Override
+                public void write(char[] chars, int offset, int length) throws IOException {
+                    FrameOutput.this.append(type, chars, offset, length);
+                }
+
+                @Override
+                public void flush() throws IOException {
+                    FrameOutput.this.flush();
+                }
+
+                @Override
+                public void close() throws IOException {
+                    FrameOutput.this.flush();
+                }
+            };
+        }
+
+        // длинный текст делится на кадры не длиннее FRAME_CHARS символов
+        private void append(byte type, char[] chars, int offset, int length) throws IOException {
+            if (type != bufferedType) {
+                writeFrame();
+                bufferedType = type;
+            }
+            int end = offset + length;
+            while (offset < end) {
+                int count = Math.min(end - offset, FRAME_CHARS - buffer.length());
+                buffer.append(chars, offset, count);
+                offset += count;
+                if (buffer.length() >= FRAME_CHARS) {
+                    flushFullFrame();
+                }
+            }
+        }
+
+        // суррогатная пара не разрывается между кадрами: ее первая половина ждет вторую
+        private void flushFullFrame() throws IOException {
+            char last = buffer.charAt(buffer.length() - 1);
+            if (!Character.isHighSurrogate(last)) {
+                flush();
+                return;
+            }
+            buffer.setLength(buffer.length() - 1);
+            flush();
+            buffer.append(last);
+        }
+
+        private void writeFrame() throws IOException {
+            if (buffer.length() == 0) {
+                return;
+            }
+            output.writeByte(bufferedType);
+            writeString(output, buffer.toString());
+            buffer.setLength(0);
+        }
+
+        void flush() throws IOException {
+            writeFrame();
+            output.flush();
+        }
+
+        void finish(int exitCode) throws IOException {
+            writeFrame();
+            output.writeByte(EXIT_FRAME);
+            output.writeInt(exitCode);
+            output.flush();
+        }
+    }
+}
@@ -0,0 +1,213 @@
+package todo;
+
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.charset.CodingErrorAction;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+// загрузка файла задач: файл отображается в память, делится на части
+// по границам строк, и части разбираются параллельно в ForkJoinPool
+class TaskFileLoader {
+    private static final int CHUNK_SIZE = 4 * 1024 * 1024;
+    private static final int NEWLINE_SEARCH_BUFFER = 8 * 1024;
+    private static final int MAX_HEADER_LENGTH = 256;
+
+    private TaskFileLoader() {}
+
+    // задачи передаются в порядке строк файла, пропущенные строки
+    // сообщаются с номерами так же, как при построчном чтении, и передаются в skippedLines;
+    // возвращается заголовок файла (StorageHeader.DEFAULT для старого формата)
+    static StorageHeader load(Path path, Consumer<ToDoItem> sink, IntConsumer skippedLines) throws IOException {
+        List<ParsedChunk> parsedChunks;
+        long dataStart;
+        StorageHeader storageHeader;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            String header = readHeaderLine(channel);
+            storageHeader = header != null ? ToDoItem.parseStorageHeader(header.strip()) : null;
+            dataStart = storageHeader != null ? header.length() : 0;
+            boolean hasTaskId = dataStart > 0;
+            List<long[]> chunks = splitIntoChunks(channel, dataStart);
+            Stream<long[]> chunkStream = chunks.size() > 1 ? chunks.parallelStream() : chunks.stream();
+            parsedChunks = chunkStream
+                    .map(chunk -> parseChunk(channel, chunk[0], chunk[1], hasTaskId))
+                    .collect(Collectors.toList());
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+
+        boolean hasTaskId = dataStart > 0;
+        int lineNumber = dataStart > 0 ? 1 : 0;
+        for (ParsedChunk chunk : parsedChunks) {
+            Iterator<String> failedLines = chunk.failedLines.iterator();
+            for (ToDoItem item : chunk.items) {
+                lineNumber++;
+                if (item != null) {
+                    sink.accept(item);
+                } else {
+                    // повторный разбор только ради сообщения об ошибке
+                    ToDoItem.fromStorageFormat(failedLines.next(), hasTaskId);
+                    ConsoleOutput.error("пропущена строка " + lineNumber);
+                    skippedLines.accept(lineNumber);
+                }
+            }
+        }
+        return storageHeader != null ? storageHeader : StorageHeader.DEFAULT;
+    }
+
+    // построчное чтение без сообщений об ошибках; номера первых maxReportedLines
+    // пропущенных строк добавляются в skippedLines, возвращается число пропущенных строк
+    static int stream(Path path, Consumer<ToDoItem> sink, List<Integer> skippedLines,
+                      int maxReportedLines) throws IOException {
+        int skipped = 0;
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(Files.newInputStream(path)))) {
+            String line = reader.readLine();
+            int lineNumber = 1;
+            boolean hasTaskId = line != null && line.startsWith("#") && ToDoItem.parseStorageHeader(line.strip()) != null;
+            if (hasTaskId) {
+                line = reader.readLine();
+                lineNumber++;
+            }
+            for (; line != null; line = reader.readLine(), lineNumber++) {
+                ToDoItem item = ToDoItem.parseQuietly(line, 0, line.length(), hasTaskId);
+                if (item != null) {
+                    sink.accept(item);
+                } else {
+                    if (skippedLines.size() < maxReportedLines) {
+                        skippedLines.add(lineNumber);
+                    }
+                    skipped++;
+                }
+            }
+        }
+        return skipped;
+    }
+
+    // первая строка файла вместе с переводом строки, если она начинается с '#';
+    // заголовок состоит из ASCII, поэтому длина строки равна числу байт
+    private static String readHeaderLine(FileChannel channel) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(MAX_HEADER_LENGTH);
+        int read = 0;
+        while (buffer.hasRemaining()) {
+            int count = channel.read(buffer, read);
+            if (count <= 0) {
+                break;
+            }
+            read += count;
+        }
+        if (read == 0 || buffer.get(0) != '#') {
+            return null;
+        }
+        int end = 0;
+        while (end < read && buffer.get(end) != '\n' && buffer.get(end) != '\r') {
+            end++;
+        }
+        if (end == read && read == MAX_HEADER_LENGTH) {
+            return null;
+        }
+        int lineLength = end;
+        if (end < read) {
+            lineLength += buffer.get(end) == '\r' && end + 1 < read && buffer.get(end + 1) == '\n' ? 2 : 1;
+        }
+        return new String(buffer.array(), 0, lineLength, StandardCharsets.US_ASCII);
+    }
+
+    // границы частей [начало, конец): каждая часть, кроме последней, заканчивается на '\n'
+    private static List<long[]> splitIntoChunks(FileChannel channel, long dataStart) throws IOException {
+        List<long[]> chunks = new ArrayList<>();
+        long size = channel.size();
+        ByteBuffer buffer = ByteBuffer.allocate(NEWLINE_SEARCH_BUFFER);
+        long start = dataStart;
+        while (start < size) {
+            long end = Math.min(start + CHUNK_SIZE, size);
+            while (end < size) {
+                buffer.clear();
+                int read = channel.read(buffer, end);
+                if (read <= 0) {
+                    end = size;
+                    break;
+                }
+                int newline = -1;
+                for (int i = 0; i < read; i++) {
+                    if (buffer.get(i) == '\n') {
+                        newline = i;
+                        break;
+                    }
+                }
+                if (newline >= 0) {
+                    end += newline + 1;
+                    break;
+                }
+                end += read;
+            }
+            chunks.add(new long[] {start, end});
+            start = end;
+        }
+        return chunks;
+    }
+
+    private static ParsedChunk parseChunk(FileChannel channel, long start, long end, boolean hasTaskId) {
+        CharBuffer chars;
+        try {
+            MappedByteBuffer bytes = channel.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+            chars = Charset.defaultCharset().newDecoder()
+                    .onMalformedInput(CodingErrorAction.REPLACE)
+                    .onUnmappableCharacter(CodingErrorAction.REPLACE)
+                    .decode(bytes);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        // строки делятся по '\n', '\r' и "\r\n", как в BufferedReader.readLine
+        ParsedChunk result = new ParsedChunk(hasTaskId);
+        int limit = chars.limit();
+        int lineStart = 0;
+        int i = 0;
+        while (i < limit) {
+            char c = chars.get(i);
+            if (c == '\n' || c == '\r') {
+                result.add(chars, lineStart, i);
+                i++;
+                if (c == '\r' && i < limit && chars.get(i) == '\n') {
+                    i++;
+                }
+                lineStart = i;
+            } else {
+                i++;
+            }
+        }
+        if (lineStart < limit) {
+            result.add(chars, lineStart, limit);
+        }
+        return result;
+    }
+
+    private static class ParsedChunk {
+        final List<ToDoItem> items = new ArrayList<>();
+        final List<String> failedLines = new ArrayList<>();
+        private final boolean hasTaskId;
+
+        ParsedChunk(boolean hasTaskId) {
+            this.hasTaskId = hasTaskId;
+        }
+
+        void add(CharBuffer chars, int start, int end) {
+            ToDoItem item = ToDoItem.parseQuietly(chars, start, end, hasTaskId);
+            items.add(item);
+            if (item == null) {
+                failedLines.add(chars.subSequence(start, end).toString());
+            }
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package todo;
+
+import java.io.*;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+// исключительная блокировка файла задач (<файл>.lock) на время работы процесса: меню, serve,
+// демон и команды без демона читают файл и журнал при запуске и сжимают журнал, поэтому
+// второй такой процесс над тем же файлом потерял бы изменения первого. Блокировка берется
+// до создания TaskManager; файл блокировки не удаляется, ОС снимает ее и при аварийном выходе
+final class TaskFileLock implements AutoCloseable {
+    private static final String LOCK_SUFFIX = ".lock";
+
+    private final FileChannel channel;
+    private final FileLock lock;
+
+    private TaskFileLock(FileChannel channel, FileLock lock) {
+        this.channel = channel;
+        this.lock = lock;
+    }
+
+    // null, если файл уже открыт другим процессом или блокировку взять не удалось (сообщение в err)
+    static TaskFileLock acquire(String filePath, PrintWriter err) {
+        Path lockPath = Path.of(filePath + LOCK_SUFFIX);
+        FileChannel channel;
+        try {
+            channel = FileChannel.open(lockPath, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        } catch (IOException e) {
+            err.println("не удалось открыть файл блокировки: " + lockPath + " - " + e.getMessage());
+            return null;
+        }
+        FileLock lock;
+        try {
+            lock = channel.tryLock();
+        } catch (IOException e) {
+            err.println("не удалось заблокировать файл задач: " + lockPath + " - " + e.getMessage());
+            closeQuietly(channel);
+            return null;
+        } catch (OverlappingFileLockException e) {
+            // блокировку уже держит этот же процесс
+            lock = null;
+        }
+        if (lock == null) {
+            err.println("файл задач " + filePath + " уже открыт другим процессом (меню, serve или демон)");
+            closeQuietly(channel);
+            return null;
+        }
+        return new TaskFileLock(channel, lock);
+    }
+
+    @Override
+    public void close() {
+        try {
+            lock.release();
+        } catch (IOException e) {
+            // канал закрывается ниже, блокировка снимается вместе с ним
+        }
+        closeQuietly(channel);
+    }
+
+    private static void closeQuietly(FileChannel channel) {
+        try {
+            channel.close();
+        } catch (IOException e) {
+            // файл блокировки пуст, терять нечего
+        }
+    }
+}
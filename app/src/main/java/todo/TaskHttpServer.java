@@ -0,0 +1,559 @@
+package todo;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.*;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+import java.io.*;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+// HTTP/JSON доступ к TaskManager для многих клиентов:
+//   GET    /tasks               список (?q=, ?priority=1..3, ?completed=true|false, ?order=, ?offset=, ?limit=)
+//   POST   /tasks               {"description": "...", "deadline": "гггг-мм-дд", "priority": 1..3}
+//   GET    /tasks/{id}          задача
+//   PATCH  /tasks/{id}          те же поля и "completed"; отсутствующие поля не меняются
+//   DELETE /tasks/{id}
+// Запросы обрабатываются пулом потоков; TaskManager сам упорядочивает изменения,
+// а чтения идут по снимку без блокировки
+final class TaskHttpServer {
+    static final int DEFAULT_PORT = 8080;
+    static final int DEFAULT_THREADS = 64;
+    private static final String TASKS_PATH = "/tasks";
+    private static final int DEFAULT_LIMIT = 100;
+    private static final int MAX_BODY_SIZE = 1024 * 1024;
+    private static final int BACKLOG = 1024;
+    private static final int STOP_DELAY_SECONDS = 1;
+    private static final long CLOSE_TIMEOUT_MILLIS = 30_000;
+    private static final String JSON_TYPE = "application/json; charset=utf-8";
+    private static final String NODELAY_PROPERTY = "sun.net.httpserver.nodelay";
+    private static final String COLLECTION_METHODS = "GET, POST";
+    private static final String TASK_METHODS = "GET, PATCH, DELETE";
+
+    private final TaskManager taskManager;
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final CountDownLatch stopped = new CountDownLatch(1);
+
+    private TaskHttpServer(TaskManager taskManager, HttpServer server, ExecutorService executor) {
+        this.taskManager = taskManager;
+        this.server = server;
+        this.executor = executor;
+    }
+
+    static TaskHttpServer start(TaskManager taskManager, InetSocketAddress address, int threads) throws IOException {
+        // без TCP_NODELAY короткий ответ ждет подтверждения заголовков (алгоритм Нейгла),
+        // и каждый запрос занимает ~40 мс. Настройка читается при первом создании сервера
+        if (System.getProperty(NODELAY_PROPERTY) == null) {
+            System.setProperty(NODELAY_PROPERTY, "true");
+        }
+        HttpServer server = HttpServer.create(address, BACKLOG);
+        // виртуальные потоки появились только в JDK 21, проект собирается под 17
+        ExecutorService executor = Executors.newFixedThreadPool(threads, new ThreadFactory() {
+            private int count;
+
+            @Override
+            public synchronized Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "http-" + ++count);
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        TaskHttpServer taskServer = new TaskHttpServer(taskManager, server, executor);
+        server.createContext(TASKS_PATH, taskServer::handle);
+        server.setExecutor(executor);
+        server.start();
+        return taskServer;
+    }
+
+    InetSocketAddress address() {
+        return server.getAddress();
+    }
+
+    // ожидание остановки по сигналу завершения (Ctrl+C); потом вызывающий закрывает TaskManager,
+    // а обработчик завершения ждет, пока поток вызывающего закончит работу
+    void awaitShutdown() {
+        Thread caller = Thread.currentThread();
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            stop();
+            try {
+                caller.join(CLOSE_TIMEOUT_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }, "http-shutdown"));
+        try {
+            stopped.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            stop();
+        }
+    }
+
+    // новые соединения не принимаются, начатые запросы дорабатываются
+    void stop() {
+        server.stop(STOP_DELAY_SECONDS);
+        executor.shutdown();
+        try {
+            executor.awaitTermination(STOP_DELAY_SECONDS, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        stopped.countDown();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            String path = exchange.getRequestURI().getPath();
+            String method = exchange.getRequestMethod();
+            if (path.equals(TASKS_PATH) || path.equals(TASKS_PATH + "/")) {
+                switch (method) {
+                    case "GET" -> listTasks(exchange);
+                    case "POST" -> createTask(exchange);
+                    default -> sendMethodNotAllowed(exchange, method, COLLECTION_METHODS);
+                }
+                return;
+            }
+            String id = path.substring(TASKS_PATH.length() + 1);
+            if (!path.startsWith(TASKS_PATH + "/") || id.isEmpty() || id.indexOf('/') >= 0) {
+                sendError(exchange, 404, "неизвестный путь: " + path);
+                return;
+            }
+            switch (method) {
+                case "GET" -> getTask(exchange, id);
+                // PUT (полная замена) не поддерживается: отсутствующее поле нельзя отличить
+                // от сброса, а срок у задачи не сбрасывается
+                case "PATCH" -> updateTask(exchange, id);
+                case "DELETE" -> removeTask(exchange, id);
+                default -> sendMethodNotAllowed(exchange, method, TASK_METHODS);
+            }
+        } catch (RuntimeException e) {
+            // подробности только в журнал сервера, клиенту - общее сообщение
+            ConsoleOutput.error("ошибка обработки " + exchange.getRequestMethod() + " "
+                    + exchange.getRequestURI() + ": " + e);
+            sendError(exchange, 500, "внутренняя ошибка сервера");
+        }
+    }
+
+    private static void sendMethodNotAllowed(HttpExchange exchange, String method, String allowed) throws IOException {
+        exchange.getResponseHeaders().set("Allow", allowed);
+        sendError(exchange, 405, "метод не поддерживается: " + method);
+    }
+
+    private void listTasks(HttpExchange exchange) throws IOException {
+        Map<String, String> query = parseQuery(exchange.getRequestURI().getRawQuery());
+        if (query == null) {
+            sendError(exchange, 400, "неверная строка запроса: " + exchange.getRequestURI().getRawQuery());
+            return;
+        }
+        TaskPriority priority = null;
+        if (query.containsKey("priority")) {
+            priority = BatchCommands.parsePriority(query.get("priority"));
+            if (priority == null) {
+                sendError(exchange, 400, "неверный приоритет: " + query.get("priority"));
+                return;
+            }
+        }
+        Boolean completed = null;
+        if (query.containsKey("completed")) {
+            completed = parseBoolean(query.get("completed"));
+            if (completed == null) {
+                sendError(exchange, 400, "completed должен быть true или false");
+                return;
+            }
+        }
+        TaskOrder order = null;
+        if (query.containsKey("order")) {
+            order = BatchCommands.parseOrder(query.get("order"));
+            if (order == null) {
+                sendError(exchange, 400, "неизвестный порядок: " + query.get("order"));
+                return;
+            }
+        }
+        int offset = BatchCommands.parseCount(query.getOrDefault("offset", "0"));
+        int limit = BatchCommands.parseCount(query.getOrDefault("limit", String.valueOf(DEFAULT_LIMIT)));
+        if (offset < 0 || limit < 0) {
+            sendError(exchange, 400, "offset и limit должны быть неотрицательными числами");
+            return;
+        }
+
+        String keyword = query.get("q");
+        TaskPriority wantedPriority = priority;
+        Boolean wantedStatus = completed;
+        if (order != null || (keyword == null && priority == null && completed == null)) {
+            // заданный порядок: найденные задачи отбираются при обходе списка в этом порядке
+            Set<String> foundIds = keyword != null ? taskManager.searchByKeyword(keyword).stream()
+                    .map(ToDoItem::getTaskId)
+                    .collect(Collectors.toSet()) : null;
+            Predicate<ToDoItem> filter = foundIds == null && priority == null && completed == null ? null
+                    : item -> (foundIds == null || foundIds.contains(item.getTaskId()))
+                            && (wantedPriority == null || item.getPriorityLevel() == wantedPriority)
+                            && (wantedStatus == null || item.isCompleted() == wantedStatus);
+            Iterator<ToDoItem> page = taskManager.listTasks(order, filter, offset, limit);
+            List<ToDoItem> tasks = new ArrayList<>();
+            page.forEachRemaining(tasks::add);
+            sendTasks(exchange, tasks);
+            return;
+        }
+
+        // первый из параметров поиска выбирает индекс, остальные фильтруют найденное
+        List<ToDoItem> found;
+        if (keyword != null) {
+            found = taskManager.searchByKeyword(keyword);
+        } else if (priority != null) {
+            found = taskManager.searchByPriority(priority);
+        } else {
+            found = taskManager.searchByCompletionStatus(completed);
+        }
+        List<ToDoItem> tasks = found.stream()
+                .filter(item -> wantedPriority == null || item.getPriorityLevel() == wantedPriority)
+                .filter(item -> wantedStatus == null || item.isCompleted() == wantedStatus)
+                .skip(offset)
+                .limit(limit)
+                .collect(Collectors.toList());
+        sendTasks(exchange, tasks);
+    }
+
+    private void createTask(HttpExchange exchange) throws IOException {
+        Map<String, Object> fields = readObject(exchange);
+        if (fields == null) {
+            return;
+        }
+        TaskFields task = TaskFields.parse(fields);
+        if (task.error != null) {
+            sendError(exchange, 400, task.error);
+            return;
+        }
+        String description = task.description != null ? task.description.trim() : "";
+        if (description.isEmpty() || task.completed != null) {
+            sendError(exchange, 400, description.isEmpty()
+                    ? "описание не может быть пустым." : "новая задача не может быть выполненной");
+            return;
+        }
+        TaskPriority priority = task.priority != null ? task.priority : TaskPriority.MEDIUM;
+        String id = taskManager.addNewTask(description, task.deadline, priority);
+        exchange.getResponseHeaders().set("Location", TASKS_PATH + "/" + id);
+        sendJson(exchange, 201, appendTask(new StringBuilder(),
+                new ToDoItem(id, description, task.deadline, priority, false)));
+    }
+
+    private void getTask(HttpExchange exchange, String id) throws IOException {
+        Optional<ToDoItem> task = taskManager.getTaskById(id);
+        if (task.isEmpty()) {
+            sendError(exchange, 404, "задача не найдена: " + id);
+            return;
+        }
+        sendJson(exchange, 200, appendTask(new StringBuilder(), task.get()));
+    }
+
+    private void updateTask(HttpExchange exchange, String id) throws IOException {
+        Map<String, Object> fields = readObject(exchange);
+        if (fields == null) {
+            return;
+        }
+        TaskFields task = TaskFields.parse(fields);
+        if (task.error != null) {
+            sendError(exchange, 400, task.error);
+            return;
+        }
+        if (task.description != null && task.description.trim().isEmpty()) {
+            sendError(exchange, 400, "описание не может быть пустым.");
+            return;
+        }
+        Optional<ToDoItem> current = taskManager.getTaskById(id);
+        ToDoItem updated = current.isPresent()
+                ? taskManager.updateTask(current.get(), task.description, task.deadline, task.priority, task.completed)
+                : null;
+        if (updated == null) {
+            sendError(exchange, 404, "задача не найдена: " + id);
+            return;
+        }
+        sendJson(exchange, 200, appendTask(new StringBuilder(), updated));
+    }
+
+    private void removeTask(HttpExchange exchange, String id) throws IOException {
+        if (!taskManager.removeTask(id)) {
+            sendError(exchange, 404, "задача не найдена: " + id);
+            return;
+        }
+        exchange.sendResponseHeaders(204, -1);
+    }
+
+    // поля задачи из тела запроса; null - поле не передано
+    private static final class TaskFields {
+        String description;
+        LocalDate deadline;
+        TaskPriority priority;
+        Boolean completed;
+        String error;
+
+        static TaskFields parse(Map<String, Object> fields) {
+            TaskFields task = new TaskFields();
+            for (Map.Entry<String, Object> field : fields.entrySet()) {
+                Object value = field.getValue();
+                if (value == null) {
+                    continue;
+                }
+                switch (field.getKey()) {
+                    case "description" -> {
+                        if (!(value instanceof String text)) {
+                            task.error = "description должен быть строкой";
+                        } else if (ToDoItem.hasControlCharacters(text)) {
+                            task.error = "описание не может содержать переводы строк и управляющие символы.";
+                        } else {
+                            task.description = text;
+                        }
+                    }
+                    case "deadline" -> {
+                        try {
+                            task.deadline = LocalDate.parse((String) value, ToDoItem.STORAGE_FORMATTER);
+                        } catch (ClassCastException | DateTimeParseException e) {
+                            task.error = "deadline должен быть датой в формате гггг-мм-дд";
+                        }
+                    }
+                    case "priority" -> {
+                        task.priority = BatchCommands.parsePriority(String.valueOf(value));
+                        if (task.priority == null) {
+                            task.error = "priority должен быть 1, 2 или 3";
+                        }
+                    }
+                    case "completed" -> {
+                        if (value instanceof Boolean status) {
+                            task.completed = status;
+                        } else {
+                            task.error = "completed должен быть true или false";
+                        }
+                    }
+                    default -> task.error = "неизвестное поле: " + field.getKey();
+                }
+            }
+            return task;
+        }
+    }
+
+    // тело запроса как JSON-объект; при ошибке ответ уже отправлен и возвращается null
+    private static Map<String, Object> readObject(HttpExchange exchange) throws IOException {
+        byte[] body = exchange.getRequestBody().readNBytes(MAX_BODY_SIZE + 1);
+        if (body.length > MAX_BODY_SIZE) {
+            sendError(exchange, 413, "слишком большое тело запроса");
+            return null;
+        }
+        try {
+            return new JsonObjectParser(new String(body, StandardCharsets.UTF_8)).parse();
+        } catch (IllegalArgumentException e) {
+            sendError(exchange, 400, "неверный JSON: " + e.getMessage());
+            return null;
+        }
+    }
+
+    // разбор плоского JSON-объекта: значения - строки, числа (как String), true/false и null
+    private static final class JsonObjectParser {
+        private final String text;
+        private int position;
+
+        JsonObjectParser(String text) {
+            this.text = text;
+        }
+
+        Map<String, Object> parse() {
+            Map<String, Object> fields = new LinkedHashMap<>();
+            expect('{');
+            if (peek() == '}') {
+                position++;
+            } else {
+                do {
+                    String key = readString();
+                    expect(':');
+                    fields.put(key, readValue());
+                } while (consume(','));
+                expect('}');
+            }
+            if (peek() != 0) {
+                throw new IllegalArgumentException("лишние символы на позиции " + position);
+            }
+            return fields;
+        }
+
+        private Object readValue() {
+            char c = peek();
+            if (c == '"') {
+                return readString();
+            }
+            for (String literal : new String[] {"true", "false", "null"}) {
+                if (text.startsWith(literal, position)) {
+                    position += literal.length();
+                    return literal.equals("null") ? null : Boolean.valueOf(literal);
+                }
+            }
+            int start = position;
+            while (position < text.length() && "+-.0123456789eE".indexOf(text.charAt(position)) >= 0) {
+                position++;
+            }
+            if (start == position) {
+                throw new IllegalArgumentException("неожиданный символ на позиции " + position);
+            }
+            return text.substring(start, position);
+        }
+
+        private String readString() {
+            expect('"');
+            StringBuilder value = new StringBuilder();
+            while (true) {
+                if (position >= text.length()) {
+                    throw new IllegalArgumentException("незакрытая строка");
+                }
+                char c = text.charAt(position++);
+                if (c == '"') {
+                    return value.toString();
+                }
+                if (c != '\\') {
+                    value.append(c);
+                    continue;
+                }
+                if (position >= text.length()) {
+                    throw new IllegalArgumentException("незакрытая строка");
+                }
+                char escaped = text.charAt(position++);
+                switch (escaped) {
+                    case '"', '\\', '/' -> value.append(escaped);
+                    case 'b' -> value.append('\b');
+                    case 'f' -> value.append('\f');
+                    case 'n' -> value.append('\n');
+                    case 'r' -> value.append('\r');
+                    case 't' -> value.append('\t');
+                    case 'u' -> {
+                        if (position + 4 > text.length()) {
+                            throw new IllegalArgumentException("неверная escape-последовательность");
+                        }
+                        try {
+                            value.append((char) Integer.parseInt(text.substring(position, position + 4), 16));
+                        } catch (NumberFormatException e) {
+                            throw new IllegalArgumentException("неверная escape-последовательность");
+                        }
+                        position += 4;
+                    }
+                    default -> throw new IllegalArgumentException("неверная escape-последовательность");
+                }
+            }
+        }
+
+        private char peek() {
+            while (position < text.length() && Character.isWhitespace(text.charAt(position))) {
+                position++;
+            }
+            return position < text.length() ? text.charAt(position) : 0;
+        }
+
+        private boolean consume(char expected) {
+            if (peek() == expected) {
+                position++;
+                return true;
+            }
+            return false;
+        }
+
+        private void expect(char expected) {
+            if (!consume(expected)) {
+                throw new IllegalArgumentException("ожидался '" + expected + "' на позиции " + position);
+            }
+        }
+    }
+
+    private static void sendTasks(HttpExchange exchange, List<ToDoItem> tasks) throws IOException {
+        StringBuilder json = new StringBuilder(tasks.size() * 96 + 2).append('[');
+        for (int i = 0; i < tasks.size(); i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            appendTask(json, tasks.get(i));
+        }
+        sendJson(exchange, 200, json.append(']'));
+    }
+
+    private static StringBuilder appendTask(StringBuilder json, ToDoItem task) {
+        json.append("{\"id\":");
+        appendString(json, task.getTaskId());
+        json.append(",\"description\":");
+        appendString(json, task.getTaskDescription());
+        json.append(",\"deadline\":");
+        if (task.getDeadline() != null) {
+            appendString(json, task.getDeadline().format(ToDoItem.STORAGE_FORMATTER));
+        } else {
+            json.append("null");
+        }
+        return json.append(",\"priority\":").append(task.getPriorityLevel().getNumber())
+                .append(",\"completed\":").append(task.isCompleted()).append('}');
+    }
+
+    private static void appendString(StringBuilder json, String value) {
+        json.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"' -> json.append("\\\"");
+                case '\\' -> json.append("\\\\");
+                case '\n' -> json.append("\\n");
+                case '\r' -> json.append("\\r");
+                case '\t' -> json.append("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        json.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        json.append(c);
+                    }
+                }
+            }
+        }
+        json.append('"');
+    }
+
+    private static void sendError(HttpExchange exchange, int status, String message) throws IOException {
+        StringBuilder json = new StringBuilder("{\"error\":");
+        appendString(json, message);
+        sendJson(exchange, status, json.append('}'));
+    }
+
+    private static void sendJson(HttpExchange exchange, int status, CharSequence json) throws IOException {
+        byte[] body = json.toString().getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", JSON_TYPE);
+        exchange.sendResponseHeaders(status, body.length);
+        exchange.getResponseBody().write(body);
+    }
+
+    // параметры запроса; null, если в нем неверная %-последовательность
+    static Map<String, String> parseQuery(String rawQuery) {
+        Map<String, String> query = new HashMap<>();
+        if (rawQuery == null || rawQuery.isEmpty()) {
+            return query;
+        }
+        for (String pair : rawQuery.split("&")) {
+            int separator = pair.indexOf('=');
+            String name = separator >= 0 ? pair.substring(0, separator) : pair;
+            String value = separator >= 0 ? pair.substring(separator + 1) : "";
+            try {
+                query.putIfAbsent(URLDecoder.decode(name, StandardCharsets.UTF_8),
+                        URLDecoder.decode(value, StandardCharsets.UTF_8));
+            } catch (IllegalArgumentException e) {
+                return null;
+            }
+        }
+        return query;
+    }
+
+    private static Boolean parseBoolean(String value) {
+        return switch (value) {
+            case "true" -> Boolean.TRUE;
+            case "false" -> Boolean.FALSE;
+            default -> null;
+        };
+    }
+}
@@ -0,0 +1,27 @@
+package todo;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+// события JDK Flight Recorder (категория "ToDo"): по ним медленные загрузки, записи, поиски
+// и сортировки видны в одной записи рядом со сборками мусора и вводом-выводом.
+// Пока запись не идет, событие почти ничего не стоит: поля заполняются только после shouldCommit()
+@Name("todo.Load")
+@Label("загрузка задач")
+@Category("ToDo")
+final class TaskLoadEvent extends Event {
+    @Label("файл")
+    String path;
+    @Label("формат")
+    String format;
+    @Label("задач")
+    int tasks;
+    @Label("размер файла")
+    @DataAmount
+    long bytes;
+    @Label("пропущено строк")
+    int skippedLines;
+}
@@ -0,0 +1,1442 @@
+package todo;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.function.Predicate;
+import java.io.*;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+// TaskManager можно использовать из нескольких потоков. Все задачи и индексы образуют
+// неизменяемый снимок: читатели берут текущий снимок без блокировки, изменения выполняются
+// по одному под блокировкой и публикуют новый снимок, общий с прежним во всем, что не менялось
+class TaskManager {
+    // выполненные задачи всегда идут после невыполненных, равные ключи различаются по ID
+    private static final Comparator<ToDoItem> DEADLINE_ORDER = Comparator
+            .comparing(ToDoItem::isCompleted)
+            .thenComparing(ToDoItem::getDeadline, Comparator.nullsLast(Comparator.naturalOrder()))
+            .thenComparing(ToDoItem::getPriorityLevel)
+            .thenComparing(ToDoItem::getTaskId, TaskManager::compareTaskIds);
+    private static final Comparator<ToDoItem> PRIORITY_ORDER = Comparator
+            .comparing(ToDoItem::isCompleted)
+            .thenComparing(ToDoItem::getPriorityLevel)
+            .thenComparing(ToDoItem::getDeadline, Comparator.nullsLast(Comparator.naturalOrder()))
+            .thenComparing(ToDoItem::getTaskId, TaskManager::compareTaskIds);
+
+    // пакет больше 1/BATCH_REBUILD_RATIO всех задач добавляется перестроением снимка
+    private static final int BATCH_REBUILD_RATIO = 8;
+    private static final int MAX_REPORTED_SKIPPED_LINES = 100;
+
+    // сколько раз поиск по ключевому слову повторяется без блокировки при конкурентных изменениях
+    private static final int OPTIMISTIC_SEARCH_ATTEMPTS = 3;
+
+    // задача с позицией в порядке добавления и описанием в нижнем регистре для поиска
+    private record TaskEntry(ToDoItem item, long position, String lowerCaseDescription) {
+        TaskEntry(ToDoItem item, long position) {
+            this(item, position, item.getTaskDescription().toLowerCase());
+        }
+    }
+
+    // неизменяемая версия задач: хеш-индекс по ID, все задачи и задачи по приоритету и статусу в порядке хранения
+    private static final class Snapshot {
+        final TaskOrder order;
+        final Comparator<TaskEntry> comparator;
+        final PersistentHashMap<String, TaskEntry> byId;
+        final PersistentSortedSet<TaskEntry> ordered;
+        final Map<TaskPriority, PersistentSortedSet<TaskEntry>> byPriority;
+        final PersistentSortedSet<TaskEntry> completed;
+        final PersistentSortedSet<TaskEntry> open;
+
+        private Snapshot(TaskOrder order, Comparator<TaskEntry> comparator, PersistentHashMap<String, TaskEntry> byId,
+                         PersistentSortedSet<TaskEntry> ordered, Map<TaskPriority, PersistentSortedSet<TaskEntry>> byPriority,
+                         PersistentSortedSet<TaskEntry> completed, PersistentSortedSet<TaskEntry> open) {
+            this.order = order;
+            this.comparator = comparator;
+            this.byId = byId;
+            this.ordered = ordered;
+            this.byPriority = byPriority;
+            this.completed = completed;
+            this.open = open;
+        }
+
+        // снимок из задач с различными ID за O(n log n)
+        static Snapshot build(TaskOrder order, Collection<TaskEntry> entries) {
+            Comparator<TaskEntry> comparator = comparator(order);
+            PersistentHashMap<String, TaskEntry> byId = PersistentHashMap.empty();
+            for (TaskEntry entry : entries) {
+                byId = byId.with(entry.item().getTaskId(), entry);
+            }
+
+            List<TaskEntry> sorted = new ArrayList<>(entries);
+            sorted.sort(comparator);
+            Map<TaskPriority, List<TaskEntry>> priorityLists = new EnumMap<>(TaskPriority.class);
+            for (TaskPriority priority : TaskPriority.values()) {
+                priorityLists.put(priority, new ArrayList<>());
+            }
+            List<TaskEntry> completedList = new ArrayList<>();
+            List<TaskEntry> openList = new ArrayList<>();
+            for (TaskEntry entry : sorted) {
+                priorityLists.get(entry.item().getPriorityLevel()).add(entry);
+                (entry.item().isCompleted() ? completedList : openList).add(entry);
+            }
+            Map<TaskPriority, PersistentSortedSet<TaskEntry>> byPriority = new EnumMap<>(TaskPriority.class);
+            priorityLists.forEach((priority, list) -> byPriority.put(priority, PersistentSortedSet.fromSorted(comparator, list)));
+            return new Snapshot(order, comparator, byId, PersistentSortedSet.fromSorted(comparator, sorted), byPriority,
+                    PersistentSortedSet.fromSorted(comparator, completedList),
+                    PersistentSortedSet.fromSorted(comparator, openList));
+        }
+
+        static Comparator<TaskEntry> comparator(TaskOrder order) {
+            return switch (order) {
+                case INSERTION -> Comparator.comparingLong(TaskEntry::position);
+                case DEADLINE -> Comparator.comparing(TaskEntry::item, DEADLINE_ORDER);
+                case PRIORITY -> Comparator.comparing(TaskEntry::item, PRIORITY_ORDER);
+            };
+        }
+
+        TaskEntry find(String taskId) {
+            return byId.get(taskId);
+        }
+
+        // замена задачи oldEntry на entry; любая из них может быть null
+        Snapshot replace(TaskEntry oldEntry, TaskEntry entry) {
+            PersistentHashMap<String, TaskEntry> newById = byId;
+            PersistentSortedSet<TaskEntry> newOrdered = ordered;
+            Map<TaskPriority, PersistentSortedSet<TaskEntry>> newByPriority = new EnumMap<>(byPriority);
+            PersistentSortedSet<TaskEntry> newCompleted = completed;
+            PersistentSortedSet<TaskEntry> newOpen = open;
+            if (oldEntry != null) {
+                ToDoItem item = oldEntry.item();
+                newById = newById.without(item.getTaskId());
+                newOrdered = newOrdered.without(oldEntry);
+                newByPriority.put(item.getPriorityLevel(), newByPriority.get(item.getPriorityLevel()).without(oldEntry));
+                if (item.isCompleted()) {
+                    newCompleted = newCompleted.without(oldEntry);
+                } else {
+                    newOpen = newOpen.without(oldEntry);
+                }
+            }
+            if (entry != null) {
+                ToDoItem item = entry.item();
+                newById = newById.with(item.getTaskId(), entry);
+                newOrdered = newOrdered.with(entry);
+                newByPriority.put(item.getPriorityLevel(), newByPriority.get(item.getPriorityLevel()).with(entry));
+                if (item.isCompleted()) {
+                    newCompleted = newCompleted.with(entry);
+                } else {
+                    newOpen = newOpen.with(entry);
+                }
+            }
+            return new Snapshot(order, comparator, newById, newOrdered, newByPriority, newCompleted, newOpen);
+        }
+    }
+
+    // задачи множества без копирования, для вывода и сохранения
+    private static Collection<ToDoItem> items(PersistentSortedSet<TaskEntry> entries) {
+        return new AbstractCollection<>() {
+            @Override
+            public Iterator<ToDoItem> iterator() {
+                Iterator<TaskEntry> iterator = entries.iterator();
+                return new Iterator<>() {
+                    @Override
+                    public boolean hasNext() {
+                        return iterator.hasNext();
+                    }
+
+                    @Override
+                    public ToDoItem next() {
+                        return iterator.next().item();
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return entries.size();
+            }
+        };
+    }
+
+    private volatile Snapshot snapshot = Snapshot.build(TaskOrder.INSERTION, List.of());
+    // позиция следующей добавленной задачи для TaskOrder.INSERTION
+    private long nextPosition;
+    private final KeywordIndex keywordIndex = new KeywordIndex();
+    private final String filePath;
+
+    // режим журнала: изменения дописываются в файл журнала,
+    // а основной файл переписывается только при уплотнении
+    private static final int JOURNAL_COMPACTION_THRESHOLD = 10_000;
+    private static final char JOURNAL_ADD = 'A';
+    private static final char JOURNAL_UPDATE = 'U';
+    private static final char JOURNAL_UPDATE_VALUE = '>';
+    private static final char JOURNAL_COMPLETE = 'C';
+    private static final char JOURNAL_REMOVE = 'R';
+
+    private final PersistenceMode persistenceMode;
+    private final Path journalPath;
+    private final Path compactingJournalPath;
+    private final ExecutorService compactionExecutor;
+    // true, если файл записан
+    private Future<Boolean> pendingCompaction;
+    private FileOutputStream journalStream;
+    private Writer journalWriter;
+    private int journalRecords;
+
+    // отложенная запись: файл переписывается через flushInterval после первого
+    // несохраненного изменения или сразу после flushThreshold изменений
+    static final Duration DEFAULT_FLUSH_INTERVAL = Duration.ofSeconds(1);
+    static final int DEFAULT_FLUSH_THRESHOLD = 1_000;
+
+    private final Duration flushInterval;
+    private final int flushThreshold;
+    private final ScheduledExecutorService flushExecutor;
+    private ScheduledFuture<?> scheduledFlush;
+    private int unflushedChanges;
+    // завершаются после записи накопленных и записываемых сейчас изменений
+    private CompletableFuture<Void> pendingDurability;
+    private CompletableFuture<Void> flushingDurability;
+
+    // ID задач - возрастающие числа; следующий ID больше всех загруженных и больше
+    // последнего выданного из заголовка файла. Меняется под writeLock, читается при записи файла
+    private volatile long lastTaskId;
+
+    // формат основного файла определяется по заголовку при загрузке
+    private volatile StorageFormat storageFormat = StorageFormat.TEXT;
+
+    private volatile DurabilityLevel durabilityLevel = DurabilityLevel.FLUSH;
+
+    // файл задач есть, но не прочитан (поврежден, обрезан, нет доступа): пустой снимок
+    // не записывается ни в файл, ни в журнал, иначе задачи пользователя были бы стерты
+    private volatile boolean readOnly;
+    // после close изменения отклоняются: потоки записи остановлены, и сохранить их уже нельзя
+    private volatile boolean closed;
+
+    // изменения и их сохранение выполняются по одному; чтения блокировку не берут
+    private final ReentrantLock writeLock = new ReentrantLock();
+    // файлы пишутся по одному: сохранение под writeLock, отложенная запись и уплотнение
+    // в своих потоках. Берется после writeLock, если нужны обе блокировки
+    private final ReentrantLock fileLock = new ReentrantLock();
+
+    private final TaskMetrics metrics = new TaskMetrics();
+
+    public TaskManager(String filePath) {
+        this(filePath, PersistenceMode.IMMEDIATE);
+    }
+
+    public TaskManager(String filePath, PersistenceMode persistenceMode) {
+        this(filePath, persistenceMode, DEFAULT_FLUSH_INTERVAL, DEFAULT_FLUSH_THRESHOLD);
+    }
+
+    // flushInterval и flushThreshold используются только в режиме WRITE_BEHIND
+    public TaskManager(String filePath, PersistenceMode persistenceMode, Duration flushInterval, int flushThreshold) {
+        this.filePath = filePath;
+        this.persistenceMode = persistenceMode;
+        this.journalPath = Path.of(filePath + ".journal");
+        this.compactingJournalPath = Path.of(filePath + ".journal.old");
+        this.compactionExecutor = persistenceMode == PersistenceMode.JOURNAL
+                ? Executors.newSingleThreadExecutor(runnable -> {
+                    Thread thread = new Thread(runnable, "journal-compaction");
+                    thread.setDaemon(true);
+                    return thread;
+                }) : null;
+        this.flushInterval = flushInterval;
+        this.flushThreshold = flushThreshold;
+        this.flushExecutor = persistenceMode == PersistenceMode.WRITE_BEHIND
+                ? Executors.newSingleThreadScheduledExecutor(runnable -> {
+                    Thread thread = new Thread(runnable, "write-behind");
+                    thread.setDaemon(true);
+                    return thread;
+                }) : null;
+        long start = metrics.start();
+        loadTasks();
+        if (persistenceMode == PersistenceMode.JOURNAL) {
+            journalRecords += replayJournal(compactingJournalPath);
+            journalRecords += replayJournal(journalPath);
+            if (!readOnly && Files.exists(compactingJournalPath)) {
+                compactJournal();
+            }
+        }
+        metrics.record(TaskOperation.LOAD, start);
+    }
+
+    // статистика операций этого менеджера
+    TaskMetrics metrics() {
+        return metrics;
+    }
+
+    // статистика доступна через JMX до close() под абсолютным путем файла задач
+    boolean registerMetricsMBean() {
+        return metrics.registerMBean(Path.of(filePath).toAbsolutePath().toString());
+    }
+
+    // добавление новой задачи; возвращается ее ID
+    public String addNewTask(String description, LocalDate deadline, TaskPriority priority) {
+        long start = metrics.start();
+        writeLock.lock();
+        try {
+            checkOpen();
+            String id = nextTaskId();
+            ToDoItem item = new ToDoItem(id, description, deadline, priority, false);
+            storeItem(item);
+            ConsoleOutput.println("задача добавлена. (ID: " + id + ")");
+            persistChange(JOURNAL_ADD + " " + item.toStorageFormat());
+            return id;
+        } finally {
+            writeLock.unlock();
+            metrics.record(TaskOperation.ADD, start);
+        }
+    }
+
+    // обновление существующей задачи; task - задача из getTaskById или поиска,
+    // изменяется хранимая задача с тем же ID. Возвращается обновленная задача или null
+    public ToDoItem updateTask(ToDoItem task, String description, LocalDate deadline, TaskPriority priority, Boolean isCompleted) {
+        long start = metrics.start();
+        writeLock.lock();
+        try {
+            checkOpen();
+            TaskEntry entry = snapshot.find(task.getTaskId());
+            if (entry == null) {
+                ConsoleOutput.println("задача не найдена.");
+                return null;
+            }
+            return applyUpdate(entry, description, deadline, priority, isCompleted);
+        } finally {
+            writeLock.unlock();
+            metrics.record(TaskOperation.UPDATE, start);
+        }
+    }
+
+    private ToDoItem applyUpdate(TaskEntry entry, String description, LocalDate deadline, TaskPriority priority, Boolean isCompleted) {
+        ToDoItem item = entry.item();
+        if (description != null && !description.trim().isEmpty()) {
+            item = item.withTaskDescription(description.trim());
+        }
+        if (deadline != null) {
+            item = item.withDeadline(deadline);
+        }
+        if (priority != null) {
+            item = item.withPriorityLevel(priority);
+        }
+        if (isCompleted != null) {
+            item = item.withCompleted(isCompleted);
+        }
+        replaceItem(entry, item);
+        ConsoleOutput.println("задача с ID " + item.getTaskId() + " обновлена.");
+
+        String oldStorageLine = entry.item().toStorageFormat();
+        String newStorageLine = item.toStorageFormat();
+        boolean onlyStatusChanged = entry.item().isCompleted() != item.isCompleted()
+                && newStorageLine.substring(1).equals(oldStorageLine.substring(1));
+        if (onlyStatusChanged) {
+            persistChange(JOURNAL_COMPLETE + " " + oldStorageLine);
+        } else {
+            persistChange(JOURNAL_UPDATE + " " + oldStorageLine + "\n" + JOURNAL_UPDATE_VALUE + " " + newStorageLine);
+        }
+        return item;
+    }
+
+    public boolean removeTask(String taskId) {
+        long start = metrics.start();
+        writeLock.lock();
+        try {
+            checkOpen();
+            ToDoItem removed = dropItem(taskId);
+            boolean isRemoved = removed != null;
+            ConsoleOutput.println(isRemoved ? "задача с ID " + taskId + " удалена." : "задача не найдена.");
+            if (isRemoved) persistChange(JOURNAL_REMOVE + " " + removed.toStorageFormat());
+            return isRemoved;
+        } finally {
+            writeLock.unlock();
+            metrics.record(TaskOperation.REMOVE, start);
+        }
+    }
+
+    // завершение работы: накопленные изменения и журнал переносятся в основной файл
+    // и статистика снимается с JMX. Затем изменения отклоняются, повторный close ничего не делает
+    public void close() {
+        long start = metrics.start();
+        try {
+            closeStorage();
+        } finally {
+            metrics.record(TaskOperation.CLOSE, start);
+            metrics.unregisterMBean();
+        }
+    }
+
+    private void closeStorage() {
+        writeLock.lock();
+        try {
+            if (closed) {
+                return;
+            }
+            closed = true;
+        } finally {
+            writeLock.unlock();
+        }
+        if (persistenceMode == PersistenceMode.WRITE_BEHIND) {
+            flushChangesAndWait();
+            flushExecutor.shutdown();
+            return;
+        }
+        if (persistenceMode != PersistenceMode.JOURNAL) {
+            return;
+        }
+        writeLock.lock();
+        try {
+            closeJournal();
+            // журнал, все записи которого уже были в файле (сбой после уплотнения), тоже
+            // уплотняется: иначе он остается на диске, хотя journalRecords равен нулю
+            if (!readOnly && (journalRecords > 0 || Files.exists(journalPath) || Files.exists(compactingJournalPath))) {
+                compactJournal();
+            }
+            awaitCompaction();
+            compactionExecutor.shutdown();
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    public DurabilityLevel getDurabilityLevel() {
+        return durabilityLevel;
+    }
+
+    // надежность следующих записей файла и журнала
+    public void setDurabilityLevel(DurabilityLevel durabilityLevel) {
+        this.durabilityLevel = durabilityLevel;
+    }
+
+    // true - файл задач не удалось загрузить, и изменения в него не записываются
+    public boolean isReadOnly() {
+        return readOnly;
+    }
+
+    // вызывается под writeLock до изменения снимка
+    private void checkOpen() {
+        if (closed) {
+            throw new IllegalStateException("менеджер задач закрыт: " + filePath);
+        }
+    }
+
+    public StorageFormat getStorageFormat() {
+        return storageFormat;
+    }
+
+    // перевод основного файла в другой формат; false - файл не удалось записать
+    public boolean changeStorageFormat(StorageFormat format) {
+        long start = metrics.start();
+        writeLock.lock();
+        try {
+            checkOpen();
+            storageFormat = format;
+            if (!persistAll()) {
+                ConsoleOutput.println("файл задач не сохранен.");
+                return false;
+            }
+            ConsoleOutput.println("файл задач сохранен в формате: " + format.getRussianName());
+            return true;
+        } finally {
+            writeLock.unlock();
+            metrics.record(TaskOperation.CHANGE_FORMAT, start);
+        }
+    }
+
+    // сохранение копии всех задач в отдельный файл в заданном формате
+    public boolean exportSnapshot(Path target, StorageFormat format) {
+        long start = metrics.start();
+        Snapshot current = snapshot;
+        try {
+            writeSnapshot(target, items(current.ordered), format, current.order, durabilityLevel);
+            ConsoleOutput.println("задачи сохранены в " + target + " (" + format.getRussianName() + " формат)");
+            return true;
+        } catch (IOException e) {
+            ConsoleOutput.error("ошибка сохранения: " + target + " - " + e.getMessage());
+            return false;
+        } finally {
+            metrics.record(TaskOperation.EXPORT, start);
+        }
+    }
+
+    // импорт задач из текстового или двоичного файла как новых задач с новыми ID.
+    // Файл читается потоково до взятия блокировки, индексы обновляются одним пакетом,
+    // файл задач сохраняется один раз. null - файл не удалось прочитать
+    public ImportSummary importTasks(Path source) {
+        long start = metrics.start();
+        try {
+            return importFile(source);
+        } finally {
+            metrics.record(TaskOperation.IMPORT, start);
+        }
+    }
+
+    private ImportSummary importFile(Path source) {
+        List<ToDoItem> imported = new ArrayList<>();
+        List<Integer> skippedLines = new ArrayList<>();
+        int skipped = 0;
+        try {
+            if (BinaryTaskCodec.isBinaryFile(source)) {
+                BinaryTaskCodec.read(source, imported::add);
+            } else {
+                skipped = TaskFileLoader.stream(source, imported::add, skippedLines, MAX_REPORTED_SKIPPED_LINES);
+            }
+        } catch (IOException e) {
+            ConsoleOutput.error("ошибка импорта: " + source + " - " + e.getMessage());
+            return null;
+        }
+        metrics.addLinesSkipped(skipped);
+        boolean saved = true;
+        if (!imported.isEmpty()) {
+            writeLock.lock();
+            try {
+                checkOpen();
+                storeItems(imported);
+                saved = persistAll();
+            } finally {
+                writeLock.unlock();
+            }
+        }
+        return new ImportSummary(imported.size(), skipped, skippedLines, saved);
+    }
+
+    // экспорт задач, удовлетворяющих filter, в текстовом формате в порядке хранения;
+    // возвращается число записанных задач или -1 при ошибке
+    public int exportTasks(Path target, Predicate<ToDoItem> filter) {
+        long start = metrics.start();
+        Snapshot current = snapshot;
+        List<ToDoItem> selected = new ArrayList<>();
+        for (ToDoItem item : items(current.ordered)) {
+            if (filter.test(item)) {
+                selected.add(item);
+            }
+        }
+        try {
+            writeSnapshot(target, selected, StorageFormat.TEXT, current.order, durabilityLevel);
+            return selected.size();
+        } catch (IOException e) {
+            ConsoleOutput.error("ошибка экспорта: " + target + " - " + e.getMessage());
+            return -1;
+        } finally {
+            metrics.record(TaskOperation.EXPORT, start);
+        }
+    }
+
+    public Optional<ToDoItem> getTaskById(String id) {
+        long start = metrics.start();
+        TaskEntry entry = snapshot.find(id);
+        metrics.record(TaskOperation.GET, start);
+        return entry != null ? Optional.of(entry.item()) : Optional.empty();
+    }
+
+    private String nextTaskId() {
+        return Long.toString(++lastTaskId);
+    }
+
+    // учет числовых ID из файла, чтобы новые ID с ними не совпадали
+    private void registerTaskId(String id) {
+        int length = id.length();
+        if (length == 0 || length > 18) {
+            return;
+        }
+        for (int i = 0; i < length; i++) {
+            char c = id.charAt(i);
+            if (c < '0' || c > '9') {
+                return;
+            }
+        }
+        lastTaskId = Math.max(lastTaskId, Long.parseLong(id));
+    }
+
+    // числовые ID сравниваются как числа: сначала по длине
+    private static int compareTaskIds(String id1, String id2) {
+        int byLength = Integer.compare(id1.length(), id2.length());
+        return byLength != 0 ? byLength : id1.compareTo(id2);
+    }
+
+    // изменения индекса триграмм и публикация снимка упорядочены так, чтобы поиск
+    // без блокировки мог обнаружить расхождение сменой снимка: новые триграммы
+    // добавляются до публикации, старые удаляются после
+    private void storeItem(ToDoItem item) {
+        TaskEntry entry = new TaskEntry(item, nextPosition++);
+        keywordIndex.add(item.getTaskId(), entry.lowerCaseDescription());
+        snapshot = snapshot.replace(null, entry);
+    }
+
+    // добавление пакета задач с новыми ID и одна публикация снимка
+    private void storeItems(List<ToDoItem> items) {
+        Snapshot current = snapshot;
+        List<TaskEntry> entries = new ArrayList<>(items.size());
+        for (ToDoItem item : items) {
+            ToDoItem stored = new ToDoItem(nextTaskId(), item.getTaskDescription(), item.getDeadline(),
+                    item.getPriorityLevel(), item.isCompleted());
+            TaskEntry entry = new TaskEntry(stored, nextPosition++);
+            keywordIndex.add(stored.getTaskId(), entry.lowerCaseDescription());
+            entries.add(entry);
+        }
+        if (entries.size() > current.ordered.size() / BATCH_REBUILD_RATIO) {
+            List<TaskEntry> all = entries(current.ordered);
+            all.addAll(entries);
+            snapshot = Snapshot.build(current.order, all);
+            return;
+        }
+        for (TaskEntry entry : entries) {
+            current = current.replace(null, entry);
+        }
+        snapshot = current;
+    }
+
+    private void replaceItem(TaskEntry entry, ToDoItem item) {
+        boolean descriptionChanged = !item.getTaskDescription().equals(entry.item().getTaskDescription());
+        TaskEntry newEntry = descriptionChanged
+                ? new TaskEntry(item, entry.position())
+                : new TaskEntry(item, entry.position(), entry.lowerCaseDescription());
+        if (descriptionChanged) {
+            keywordIndex.add(item.getTaskId(), newEntry.lowerCaseDescription());
+        }
+        snapshot = snapshot.replace(entry, newEntry);
+        if (descriptionChanged) {
+            keywordIndex.remove(item.getTaskId(), entry.lowerCaseDescription(), newEntry.lowerCaseDescription());
+        }
+    }
+
+    private ToDoItem dropItem(String taskId) {
+        TaskEntry entry = snapshot.find(taskId);
+        if (entry == null) {
+            return null;
+        }
+        snapshot = snapshot.replace(entry, null);
+        keywordIndex.remove(taskId, entry.lowerCaseDescription(), null);
+        return entry.item();
+    }
+
+    // перестроение снимка под новый порядок
+    private void applyOrder(TaskOrder newOrder) {
+        snapshot = Snapshot.build(newOrder, entries(snapshot.ordered));
+    }
+
+    private static List<TaskEntry> entries(PersistentSortedSet<TaskEntry> set) {
+        List<TaskEntry> entries = new ArrayList<>(set.size());
+        set.forEach(entries::add);
+        return entries;
+    }
+
+    public TaskOrder getOrder() {
+        return snapshot.order;
+    }
+
+    // страница списка задач: невыполненные, затем выполненные, каждые в порядке order
+    // (null - текущий порядок хранения). filter (null - все задачи) отбирает задачи,
+    // offset и limit отсчитываются среди отобранных. Задачи берутся из одного снимка по мере
+    // обхода; без filter в текущем порядке начало страницы находится за O(log n).
+    // В статистику попадает время до начала обхода
+    public Iterator<ToDoItem> listTasks(TaskOrder order, Predicate<ToDoItem> filter, int offset, int limit) {
+        long start = metrics.start();
+        try {
+            return openPage(order, filter, offset, limit);
+        } finally {
+            metrics.record(TaskOperation.LIST, start);
+        }
+    }
+
+    private Iterator<ToDoItem> openPage(TaskOrder order, Predicate<ToDoItem> filter, int offset, int limit) {
+        Snapshot current = snapshot;
+        if (order != null && order != current.order) {
+            Comparator<TaskEntry> comparator = Snapshot.comparator(order);
+            List<TaskEntry> open = entries(current.open);
+            List<TaskEntry> completed = entries(current.completed);
+            open.sort(comparator);
+            completed.sort(comparator);
+            return new PageIterator(List.of(open.iterator(), completed.iterator()), filter, offset, limit);
+        }
+        if (filter != null) {
+            return new PageIterator(List.of(current.open.iterator(), current.completed.iterator()), filter, offset, limit);
+        }
+        int openCount = current.open.size();
+        List<Iterator<TaskEntry>> sources = offset < openCount
+                ? List.of(current.open.iterator(offset), current.completed.iterator())
+                : List.of(current.completed.iterator(offset - openCount));
+        return new PageIterator(sources, null, 0, limit);
+    }
+
+    // отобранные filter задачи из источников по очереди: первые skip пропускаются, выдаются не больше limit
+    private static final class PageIterator implements Iterator<ToDoItem> {
+        private final Iterator<Iterator<TaskEntry>> sources;
+        private final Predicate<ToDoItem> filter;
+        private Iterator<TaskEntry> source = Collections.emptyIterator();
+        private int skip;
+        private int remaining;
+        private ToDoItem next;
+
+        PageIterator(List<Iterator<TaskEntry>> sources, Predicate<ToDoItem> filter, int skip, int limit) {
+            this.sources = sources.iterator();
+            this.filter = filter;
+            this.skip = Math.max(skip, 0);
+            this.remaining = Math.max(limit, 0);
+            advance();
+        }
+
+        private void advance() {
+            next = null;
+            while (remaining > 0) {
+                while (!source.hasNext()) {
+                    if (!sources.hasNext()) {
+                        return;
+                    }
+                    source = sources.next();
+                }
+                ToDoItem item = source.next().item();
+                if (filter != null && !filter.test(item)) {
+                    continue;
+                }
+                if (skip > 0) {
+                    skip--;
+                    continue;
+                }
+                remaining--;
+                next = item;
+                return;
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next != null;
+        }
+
+        @Override
+        public ToDoItem next() {
+            if (next == null) {
+                throw new NoSuchElementException();
+            }
+            ToDoItem item = next;
+            advance();
+            return item;
+        }
+    }
+
+    // сортировка по дате выполнения; порядок сохраняется и для новых задач
+    public void sortByDeadline() {
+        changeOrder(TaskOrder.DEADLINE, "задачи отсортированы по срокам выполнения.");
+    }
+
+    // сортировка по приоритету
+    public void sortByPriority() {
+        changeOrder(TaskOrder.PRIORITY, "задачи отсортированы по приоритетам.");
+    }
+
+    // возврат к порядку добавления
+    public void sortByInsertionOrder() {
+        changeOrder(TaskOrder.INSERTION, "задачи упорядочены по времени добавления.");
+    }
+
+    private void changeOrder(TaskOrder newOrder, String message) {
+        long start = metrics.start();
+        TaskSortEvent event = new TaskSortEvent();
+        event.begin();
+        writeLock.lock();
+        try {
+            checkOpen();
+            applyOrder(newOrder);
+            // событие не включает сохранение: оно записывается своим TaskSaveEvent
+            event.end();
+            if (event.shouldCommit()) {
+                event.order = newOrder.name();
+                event.tasks = snapshot.ordered.size();
+                event.commit();
+            }
+            ConsoleOutput.println(message);
+            persistAll();
+        } finally {
+            writeLock.unlock();
+            metrics.record(TaskOperation.SORT, start);
+        }
+    }
+
+    // поиск задач по ключевому слову. Кандидаты из индекса проверяются по снимку;
+    // если за время поиска опубликован новый снимок, поиск повторяется
+    public List<ToDoItem> searchByKeyword(String keyword) {
+        long start = metrics.start();
+        TaskSearchEvent event = new TaskSearchEvent();
+        event.begin();
+        try {
+            List<ToDoItem> found = searchKeyword(keyword);
+            commitSearch(event, "описание", keyword, found);
+            return found;
+        } finally {
+            metrics.record(TaskOperation.SEARCH_KEYWORD, start);
+        }
+    }
+
+    private List<ToDoItem> searchKeyword(String keyword) {
+        String lowerCaseKeyword = keyword.toLowerCase();
+        for (int attempt = 0; attempt < OPTIMISTIC_SEARCH_ATTEMPTS; attempt++) {
+            Snapshot current = snapshot;
+            List<ToDoItem> found = findByKeyword(current, lowerCaseKeyword);
+            if (snapshot == current) {
+                return found;
+            }
+        }
+        writeLock.lock();
+        try {
+            return findByKeyword(snapshot, lowerCaseKeyword);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    private List<ToDoItem> findByKeyword(Snapshot current, String lowerCaseKeyword) {
+        List<ToDoItem> found = new ArrayList<>();
+        if (lowerCaseKeyword.length() < KeywordIndex.TRIGRAM_LENGTH) {
+            // короткий запрос не покрывается триграммами: проверяются все описания
+            for (TaskEntry entry : current.ordered) {
+                if (entry.lowerCaseDescription().contains(lowerCaseKeyword)) {
+                    found.add(entry.item());
+                }
+            }
+            return found;
+        }
+        List<TaskEntry> matches = new ArrayList<>();
+        for (String taskId : keywordIndex.candidates(lowerCaseKeyword)) {
+            TaskEntry entry = current.find(taskId);
+            if (entry != null && entry.lowerCaseDescription().contains(lowerCaseKeyword)) {
+                matches.add(entry);
+            }
+        }
+        matches.sort(current.comparator);
+        for (TaskEntry entry : matches) {
+            found.add(entry.item());
+        }
+        return found;
+    }
+
+    public List<ToDoItem> searchByCompletionStatus(boolean completed) {
+        long start = metrics.start();
+        TaskSearchEvent event = new TaskSearchEvent();
+        event.begin();
+        Snapshot current = snapshot;
+        List<ToDoItem> found = new ArrayList<>(items(completed ? current.completed : current.open));
+        commitSearch(event, "статус", completed ? "выполнена" : "не выполнена", found);
+        metrics.record(TaskOperation.SEARCH_STATUS, start);
+        return found;
+    }
+
+    public List<ToDoItem> searchByPriority(TaskPriority priority) {
+        long start = metrics.start();
+        TaskSearchEvent event = new TaskSearchEvent();
+        event.begin();
+        List<ToDoItem> found = new ArrayList<>(items(snapshot.byPriority.get(priority)));
+        commitSearch(event, "приоритет", priority.getRussianName(), found);
+        metrics.record(TaskOperation.SEARCH_PRIORITY, start);
+        return found;
+    }
+
+    private void commitSearch(TaskSearchEvent event, String criterion, String query, List<ToDoItem> found) {
+        if (event.shouldCommit()) {
+            event.criterion = criterion;
+            event.query = query;
+            event.tasks = snapshot.ordered.size();
+            event.found = found.size();
+            event.commit();
+        }
+    }
+
+    // k ближайших по сроку невыполненных задач, задачи без срока - в конце.
+    // Порядок хранения не меняется и ничего не сохраняется: при порядке по сроку
+    // берется начало индекса, иначе задачи проходят через кучу из k элементов за O(n log k)
+    public List<ToDoItem> nextDue(int k) {
+        long start = metrics.start();
+        try {
+            return findNextDue(k);
+        } finally {
+            metrics.record(TaskOperation.NEXT_DUE, start);
+        }
+    }
+
+    private List<ToDoItem> findNextDue(int k) {
+        Snapshot current = snapshot;
+        // k приходит от пользователя и может быть намного больше числа задач
+        int capacity = Math.min(k, current.open.size());
+        if (capacity <= 0) {
+            return new ArrayList<>();
+        }
+        List<ToDoItem> result = new ArrayList<>(capacity);
+        if (current.order == TaskOrder.DEADLINE) {
+            Iterator<TaskEntry> entries = current.open.iterator();
+            while (result.size() < k && entries.hasNext()) {
+                result.add(entries.next().item());
+            }
+            return result;
+        }
+        // на вершине кучи - самая поздняя из отобранных задач
+        PriorityQueue<ToDoItem> latest = new PriorityQueue<>(capacity, DEADLINE_ORDER.reversed());
+        for (TaskEntry entry : current.open) {
+            ToDoItem item = entry.item();
+            if (latest.size() < k) {
+                latest.add(item);
+            } else if (DEADLINE_ORDER.compare(item, latest.peek()) < 0) {
+                latest.poll();
+                latest.add(item);
+            }
+        }
+        result.addAll(latest);
+        result.sort(DEADLINE_ORDER);
+        return result;
+    }
+
+    // сохранение одного изменения: запись в журнал, перезапись файла или отметка для отложенной записи
+    private void persistChange(String journalRecord) {
+        switch (persistenceMode) {
+            case IMMEDIATE -> writeTasksFile();
+            case JOURNAL -> appendJournal(journalRecord);
+            case WRITE_BEHIND -> markUnflushed();
+        }
+    }
+
+    // сохранение изменений, которые в журнал не записываются (импорт, порядок, формат).
+    // В режиме журнала уплотнение дожидается записи файла, чтобы об успехе не сообщалось
+    // до того, как изменения на диске; false - файл не записан
+    private boolean persistAll() {
+        if (readOnly) {
+            ConsoleOutput.error("ошибка сохранения: " + filePath + " - файл задач не загружен, запись отключена");
+            return false;
+        }
+        return switch (persistenceMode) {
+            case IMMEDIATE -> writeTasksFile();
+            case JOURNAL -> compactJournal() && awaitCompaction();
+            case WRITE_BEHIND -> {
+                markUnflushed();
+                yield true;
+            }
+        };
+    }
+
+    // будущее, которое завершается, когда все уже выполненные изменения записаны в файл.
+    // Вне режима WRITE_BEHIND изменения записываются сразу, и будущее уже завершено
+    public CompletableFuture<Void> durability() {
+        writeLock.lock();
+        try {
+            CompletableFuture<Void> durability = pendingDurability != null ? pendingDurability : flushingDurability;
+            return durability != null ? durability.copy() : CompletableFuture.completedFuture(null);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    // немедленная запись накопленных изменений с ожиданием ее завершения; после close
+    // ничего не делает. Нельзя вызывать из кода, который держит writeLock: запись берет его в другом потоке
+    public void flush() {
+        if (persistenceMode != PersistenceMode.WRITE_BEHIND || closed) {
+            return;
+        }
+        long start = metrics.start();
+        try {
+            flushChangesAndWait();
+        } catch (RejectedExecutionException e) {
+            // close завершился между проверкой и запуском записи и уже записал изменения
+        } finally {
+            metrics.record(TaskOperation.FLUSH, start);
+        }
+    }
+
+    private void flushChangesAndWait() {
+        try {
+            flushExecutor.submit(this::flushChanges).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            ConsoleOutput.error("ошибка сохранения: " + filePath + " - " + e.getCause().getMessage());
+        }
+    }
+
+    private void markUnflushed() {
+        if (pendingDurability == null) {
+            pendingDurability = new CompletableFuture<>();
+        }
+        if (++unflushedChanges == flushThreshold) {
+            flushExecutor.execute(this::flushChanges);
+        } else if (scheduledFlush == null) {
+            scheduledFlush = flushExecutor.schedule(this::flushChanges, flushInterval.toMillis(), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    // запись накопленных изменений в потоке отложенной записи: под writeLock
+    // забирается только будущее, файл пишется без writeLock
+    private void flushChanges() {
+        CompletableFuture<Void> durability;
+        writeLock.lock();
+        try {
+            if (scheduledFlush != null) {
+                scheduledFlush.cancel(false);
+                scheduledFlush = null;
+            }
+            if (pendingDurability == null) {
+                return;
+            }
+            durability = pendingDurability;
+            flushingDurability = durability;
+            pendingDurability = null;
+            unflushedChanges = 0;
+        } finally {
+            writeLock.unlock();
+        }
+
+        IOException failure = null;
+        try {
+            writeCurrentSnapshot(durabilityLevel);
+        } catch (IOException e) {
+            ConsoleOutput.error("ошибка сохранения: " + filePath + " - " + e.getMessage());
+            failure = e;
+        }
+        writeLock.lock();
+        try {
+            flushingDurability = null;
+            // несохраненные изменения записываются при следующей попытке
+            if (failure != null && !flushExecutor.isShutdown()) {
+                markUnflushed();
+            }
+        } finally {
+            writeLock.unlock();
+        }
+        if (failure != null) {
+            durability.completeExceptionally(failure);
+        } else {
+            durability.complete(null);
+        }
+    }
+
+    private void appendJournal(String record) {
+        if (readOnly) {
+            ConsoleOutput.error("ошибка записи журнала: " + journalPath + " - файл задач не загружен, запись отключена");
+            return;
+        }
+        try {
+            if (journalWriter == null) {
+                boolean newJournal = !Files.exists(journalPath) || Files.size(journalPath) == 0;
+                journalStream = new FileOutputStream(journalPath.toFile(), true);
+                journalWriter = new BufferedWriter(new OutputStreamWriter(journalStream));
+                if (newJournal) {
+                    journalWriter.write(ToDoItem.STORAGE_HEADER + "\n");
+                }
+            }
+        } catch (IOException e) {
+            ConsoleOutput.error("ошибка открытия журнала: " + journalPath + " - " + e.getMessage());
+            writeTasksFile();
+            return;
+        }
+        // запись завершается '\n': неполная последняя строка при загрузке отбрасывается
+        try {
+            long position = metrics.isEnabled() ? journalStream.getChannel().position() : 0;
+            journalWriter.write(record + "\n");
+            journalWriter.flush();
+            if (metrics.isEnabled()) {
+                metrics.addBytesWritten(journalStream.getChannel().position() - position);
+            }
+            if (durabilityLevel == DurabilityLevel.FSYNC) {
+                journalStream.getChannel().force(false);
+            }
+        } catch (IOException e) {
+            ConsoleOutput.error("ошибка записи журнала: " + journalPath + " - " + e.getMessage());
+        }
+        if (++journalRecords >= JOURNAL_COMPACTION_THRESHOLD) {
+            compactJournal();
+        }
+    }
+
+    private void closeJournal() {
+        if (journalWriter != null) {
+            try {
+                journalWriter.close();
+            } catch (IOException e) {
+                ConsoleOutput.error("ошибка записи журнала: " + journalPath + " - " + e.getMessage());
+            }
+            journalWriter = null;
+            journalStream = null;
+        }
+    }
+
+    // уплотнение: текущий журнал откладывается, снимок задач записывается в фоне,
+    // после замены основного файла отложенный журнал удаляется. false - журнал не удалось отложить
+    private boolean compactJournal() {
+        closeJournal();
+        awaitCompaction();
+        try {
+            if (Files.exists(journalPath)) {
+                if (Files.exists(compactingJournalPath)) {
+                    Files.write(compactingJournalPath, Files.readAllBytes(journalPath), StandardOpenOption.APPEND);
+                    Files.delete(journalPath);
+                } else {
+                    Files.move(journalPath, compactingJournalPath);
+                }
+            }
+        } catch (IOException e) {
+            ConsoleOutput.error("ошибка уплотнения журнала: " + journalPath + " - " + e.getMessage());
+            return false;
+        }
+        journalRecords = 0;
+
+        // снимок неизменяем, поэтому фоновая запись не мешает следующим изменениям. Пишется
+        // снимок на момент записи: он включает все изменения отложенного журнала, а изменения
+        // из нового журнала при загрузке применяются к нему повторно без вреда.
+        // Отложенный журнал удаляется только после атомарной замены файла,
+        // поэтому уплотнение не переписывает файл на месте даже при DurabilityLevel.NONE
+        DurabilityLevel durability = durabilityLevel == DurabilityLevel.NONE ? DurabilityLevel.FLUSH : durabilityLevel;
+        pendingCompaction = compactionExecutor.submit(() -> {
+            try {
+                writeCurrentSnapshot(durability);
+                Files.deleteIfExists(compactingJournalPath);
+                return true;
+            } catch (IOException e) {
+                ConsoleOutput.error("ошибка уплотнения журнала: " + filePath + " - " + e.getMessage());
+                return false;
+            }
+        });
+        return true;
+    }
+
+    private static void replaceFile(Path source, Path target) throws IOException {
+        try {
+            Files.move(source, target, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    // false - последнее уплотнение не записало файл
+    private boolean awaitCompaction() {
+        if (pendingCompaction == null) {
+            return true;
+        }
+        boolean written = false;
+        try {
+            written = pendingCompaction.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            ConsoleOutput.error("ошибка уплотнения журнала: " + e.getCause().getMessage());
+        }
+        pendingCompaction = null;
+        return written;
+    }
+
+    // применение журнала к загруженному снимку; записи ссылаются на задачи
+    // по их строке хранения. Строки с ID делают повторное применение
+    // безопасным: уже учтенные в снимке записи не находят своих задач
+    private int replayJournal(Path journal) {
+        if (!Files.exists(journal)) {
+            return 0;
+        }
+        String content;
+        try {
+            content = new String(Files.readAllBytes(journal));
+        } catch (IOException e) {
+            ConsoleOutput.error("ошибка чтения журнала: " + journal + " - " + e.getMessage());
+            return 0;
+        }
+        int end = content.lastIndexOf('\n');
+        if (end < 0) {
+            return 0;
+        }
+        String[] lines = content.substring(0, end).split("\n", -1);
+        Map<String, Deque<ToDoItem>> itemsByLine = null;
+        boolean hasTaskId = false;
+        int applied = 0;
+        for (int i = 0; i < lines.length; i++) {
+            String record = lines[i];
+            int recordNumber = i + 1;
+            // заголовок может встретиться и в середине после слияния журналов
+            if (ToDoItem.parseStorageHeader(record) != null) {
+                hasTaskId = true;
+                continue;
+            }
+            if (record.length() < 2 || record.charAt(1) != ' ') {
+                ConsoleOutput.error("пропущена запись журнала " + recordNumber);
+                continue;
+            }
+            char operation = record.charAt(0);
+            String storageLine = record.substring(2);
+            if (operation == JOURNAL_ADD) {
+                ToDoItem item = ToDoItem.fromStorageFormat(storageLine, hasTaskId);
+                if (item == null) {
+                    ConsoleOutput.error("пропущена запись журнала " + recordNumber);
+                    continue;
+                }
+                if (item.getTaskId() != null && snapshot.find(item.getTaskId()) != null) {
+                    continue;
+                }
+                item = addLoadedItem(item);
+                if (itemsByLine != null) {
+                    itemsByLine.computeIfAbsent(storageLine, key -> new ArrayDeque<>()).add(item);
+                }
+                applied++;
+                continue;
+            }
+
+            if (itemsByLine == null) {
+                itemsByLine = new HashMap<>();
+                for (ToDoItem item : items(snapshot.ordered)) {
+                    itemsByLine.computeIfAbsent(item.toStorageFormat(), key -> new ArrayDeque<>()).add(item);
+                }
+            }
+            Deque<ToDoItem> candidates = itemsByLine.get(storageLine);
+            ToDoItem item = candidates != null ? candidates.poll() : null;
+
+            ToDoItem newValue = null;
+            if (operation == JOURNAL_UPDATE) {
+                String valueRecord = i + 1 < lines.length ? lines[++i] : "";
+                if (valueRecord.length() > 2 && valueRecord.charAt(0) == JOURNAL_UPDATE_VALUE) {
+                    newValue = ToDoItem.fromStorageFormat(valueRecord.substring(2), hasTaskId);
+                }
+            }
+            boolean known = operation == JOURNAL_REMOVE || operation == JOURNAL_COMPLETE
+                    || (operation == JOURNAL_UPDATE && newValue != null);
+            if (item == null || !known) {
+                if (item != null) {
+                    candidates.addFirst(item);
+                }
+                ConsoleOutput.error("пропущена запись журнала " + recordNumber);
+                continue;
+            }
+
+            if (operation == JOURNAL_REMOVE) {
+                dropItem(item.getTaskId());
+            } else {
+                ToDoItem updated = operation == JOURNAL_COMPLETE
+                        ? item.withCompleted(!item.isCompleted())
+                        : new ToDoItem(item.getTaskId(), newValue.getTaskDescription(), newValue.getDeadline(),
+                                newValue.getPriorityLevel(), newValue.isCompleted());
+                replaceItem(snapshot.find(item.getTaskId()), updated);
+                item = updated;
+                itemsByLine.computeIfAbsent(item.toStorageFormat(), key -> new ArrayDeque<>()).add(item);
+            }
+            applied++;
+        }
+        return applied;
+    }
+
+    // добавление задачи из файла; задача без ID или с уже занятым ID получает новый
+    private ToDoItem addLoadedItem(ToDoItem item) {
+        if (item.getTaskId() != null) {
+            registerTaskId(item.getTaskId());
+        }
+        if (item.getTaskId() == null || snapshot.find(item.getTaskId()) != null) {
+            item = new ToDoItem(nextTaskId(), item.getTaskDescription(), item.getDeadline(),
+                    item.getPriorityLevel(), item.isCompleted());
+        }
+        storeItem(item);
+        return item;
+    }
+
+    // сохранение задач в файл
+    void saveTasks() {
+        writeLock.lock();
+        try {
+            writeTasksFile();
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    private boolean writeTasksFile() {
+        try {
+            writeCurrentSnapshot(durabilityLevel);
+            return true;
+        } catch (IOException e) {
+            ConsoleOutput.error("ошибка сохранения: " + filePath + " - " + e.getMessage());
+            return false;
+        }
+    }
+
+    // запись основного файла. Снимок и формат берутся под fileLock, поэтому
+    // более поздняя запись никогда не заменяет файл более старым снимком
+    private void writeCurrentSnapshot(DurabilityLevel durability) throws IOException {
+        if (readOnly) {
+            throw new IOException("файл задач не загружен, запись в него отключена");
+        }
+        fileLock.lock();
+        try {
+            Snapshot current = snapshot;
+            writeSnapshot(Path.of(filePath), items(current.ordered), storageFormat, current.order, durability);
+        } finally {
+            fileLock.unlock();
+        }
+    }
+
+    // запись файла задач. Кроме DurabilityLevel.NONE файл пишется через FileChannel в свой
+    // временный файл рядом с target и атомарно заменяет target: при сбое остается старый
+    // или новый файл целиком
+    private void writeSnapshot(Path target, Collection<ToDoItem> items, StorageFormat format,
+                               TaskOrder order, DurabilityLevel durability) throws IOException {
+        long start = metrics.start();
+        TaskSaveEvent event = new TaskSaveEvent();
+        event.begin();
+        fileLock.lock();
+        try {
+            // lastTaskId читается после снимка задач, поэтому не меньше ни одного ID в нем
+            long bytes = writeSnapshotFile(target, items, format, new StorageHeader(order, lastTaskId), durability);
+            metrics.addBytesWritten(bytes);
+            if (event.shouldCommit()) {
+                event.path = target.toString();
+                event.format = format.name();
+                event.durability = durability.name();
+                event.tasks = items.size();
+                event.bytes = bytes;
+                event.commit();
+            }
+        } finally {
+            fileLock.unlock();
+            metrics.record(TaskOperation.SAVE, start);
+        }
+    }
+
+    // возвращается размер записанного файла
+    private static long writeSnapshotFile(Path target, Collection<ToDoItem> items, StorageFormat format,
+                                          StorageHeader header, DurabilityLevel durability) throws IOException {
+        if (durability == DurabilityLevel.NONE) {
+            try (FileChannel channel = FileChannel.open(target, StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                writeItems(channel, items, format, header);
+                return channel.position();
+            }
+        }
+        long bytes;
+        Path tempFile = createTempFileFor(target);
+        try (FileChannel channel = FileChannel.open(tempFile, StandardOpenOption.WRITE)) {
+            writeItems(channel, items, format, header);
+            bytes = channel.position();
+            if (durability == DurabilityLevel.FSYNC) {
+                channel.force(true);
+            }
+        } catch (IOException e) {
+            Files.deleteIfExists(tempFile);
+            throw e;
+        }
+        replaceFile(tempFile, target);
+        if (durability == DurabilityLevel.FSYNC) {
+            forceDirectory(target);
+        }
+        return bytes;
+    }
+
+    // временный файл рядом с target с правами target, а если его нет - с правами нового файла по umask.
+    // Files.createTempFile создает файл только для владельца, и после замены такие права получил бы target
+    private static Path createTempFileFor(Path target) throws IOException {
+        Path directory = target.toAbsolutePath().getParent();
+        Path tempFile;
+        while (true) {
+            tempFile = directory.resolve(target.getFileName() + "."
+                    + Long.toUnsignedString(ThreadLocalRandom.current().nextLong()) + ".tmp");
+            try {
+                Files.createFile(tempFile);
+                break;
+            } catch (FileAlreadyExistsException e) {
+                // имя занято, пробуем другое
+            }
+        }
+        try {
+            Files.setPosixFilePermissions(tempFile, Files.getPosixFilePermissions(target));
+        } catch (NoSuchFileException | UnsupportedOperationException e) {
+            // файла еще нет или система не поддерживает права POSIX
+        } catch (IOException e) {
+            Files.deleteIfExists(tempFile);
+            throw e;
+        }
+        return tempFile;
+    }
+
+    // содержимое файла задач; буферы сбрасываются в channel, но channel не закрывается
+    private static void writeItems(FileChannel channel, Collection<ToDoItem> items, StorageFormat format,
+                                   StorageHeader header) throws IOException {
+        if (format == StorageFormat.BINARY) {
+            BinaryTaskCodec.write(Channels.newOutputStream(channel), items, header);
+            return;
+        }
+        TextTaskWriter.write(channel, items, header);
+    }
+
+    // новое имя файла сохраняется на диске только после сброса каталога
+    private static void forceDirectory(Path file) {
+        Path directory = file.toAbsolutePath().getParent();
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            // не все системы позволяют открыть каталог; файл уже записан
+        }
+    }
+
+    // загрузка задач из файла
+    private void loadTasks() {
+        Path path = Path.of(filePath);
+        if (!Files.exists(path)) {
+            ConsoleOutput.println("файл не найден, создан новый список.");
+            return;
+        }
+
+        TaskLoadEvent event = new TaskLoadEvent();
+        event.begin();
+        try {
+            List<ToDoItem> loaded = new ArrayList<>();
+            StorageHeader header;
+            int[] skippedLines = new int[1];
+            if (BinaryTaskCodec.isBinaryFile(path)) {
+                storageFormat = StorageFormat.BINARY;
+                header = BinaryTaskCodec.read(path, loaded::add);
+            } else {
+                header = TaskFileLoader.load(path, loaded::add, lineNumber -> skippedLines[0]++);
+            }
+            metrics.addLinesSkipped(skippedLines[0]);
+            lastTaskId = header.lastTaskId();
+            // новые ID раздаются только после того, как известны все ID из файла
+            for (ToDoItem item : loaded) {
+                if (item.getTaskId() != null) {
+                    registerTaskId(item.getTaskId());
+                }
+            }
+            // снимок строится сразу из всех задач, а не добавлением по одной
+            Set<String> taskIds = new HashSet<>();
+            List<TaskEntry> entries = new ArrayList<>(loaded.size());
+            for (ToDoItem item : loaded) {
+                if (item.getTaskId() == null || !taskIds.add(item.getTaskId())) {
+                    item = new ToDoItem(nextTaskId(), item.getTaskDescription(), item.getDeadline(),
+                            item.getPriorityLevel(), item.isCompleted());
+                    taskIds.add(item.getTaskId());
+                }
+                TaskEntry entry = new TaskEntry(item, nextPosition++);
+                keywordIndex.add(item.getTaskId(), entry.lowerCaseDescription());
+                entries.add(entry);
+            }
+            snapshot = Snapshot.build(header.order(), entries);
+            if (event.shouldCommit()) {
+                event.path = filePath;
+                event.format = storageFormat.name();
+                event.tasks = entries.size();
+                event.bytes = Files.size(path);
+                event.skippedLines = skippedLines[0];
+                event.commit();
+            }
+            ConsoleOutput.println("задачи загружены из " + filePath);
+        } catch (FileNotFoundException | NoSuchFileException e) {
+            ConsoleOutput.error("файл не найден: " + e.getMessage());
+        } catch (IOException e) {
+            readOnly = true;
+            // EOFException сообщения не содержит
+            ConsoleOutput.error("ошибка загрузки: " + (e instanceof EOFException ? "файл обрезан" : e.getMessage()));
+        }
+    }
+}
@@ -0,0 +1,176 @@
+package todo;
+
+import java.util.*;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.ToDoubleFunction;
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+// метрики одного TaskManager: число и задержки операций, записанные в файлы байты
+// и пропущенные при чтении строки. Выключенные метрики стоят одного чтения volatile на операцию;
+// включаются и выключаются свойством todo.metrics.enabled или атрибутом Enabled в JMX
+final class TaskMetrics implements TaskMetricsMBean {
+    static final String ENABLED_PROPERTY = "todo.metrics.enabled";
+    private static final String OBJECT_NAME_PREFIX = "todo:type=TaskManager,file=";
+
+    private final LatencyHistogram[] latencies = new LatencyHistogram[TaskOperation.values().length];
+    private final LongAdder bytesWritten = new LongAdder();
+    private final LongAdder linesSkipped = new LongAdder();
+    private volatile boolean enabled = !"false".equalsIgnoreCase(System.getProperty(ENABLED_PROPERTY));
+    private ObjectName registeredName;
+
+    TaskMetrics() {
+        Arrays.setAll(latencies, i -> new LatencyHistogram());
+    }
+
+    // начало замера операции; 0 - метрики выключены и record ничего не запишет
+    long start() {
+        return enabled ? System.nanoTime() : 0;
+    }
+
+    void record(TaskOperation operation, long start) {
+        if (start != 0) {
+            latencies[operation.ordinal()].record(System.nanoTime() - start);
+        }
+    }
+
+    void addBytesWritten(long bytes) {
+        if (enabled) {
+            bytesWritten.add(bytes);
+        }
+    }
+
+    void addLinesSkipped(int lines) {
+        if (enabled) {
+            linesSkipped.add(lines);
+        }
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @Override
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    LatencyHistogram latency(TaskOperation operation) {
+        return latencies[operation.ordinal()];
+    }
+
+    @Override
+    public long getBytesWritten() {
+        return bytesWritten.sum();
+    }
+
+    @Override
+    public long getLinesSkipped() {
+        return linesSkipped.sum();
+    }
+
+    @Override
+    public void reset() {
+        for (LatencyHistogram histogram : latencies) {
+            histogram.reset();
+        }
+        bytesWritten.reset();
+        linesSkipped.reset();
+    }
+
+    // таблица по выполнявшимся операциям, времена в миллисекундах
+    String report() {
+        StringBuilder report = new StringBuilder();
+        if (!enabled) {
+            report.append("сбор статистики выключен (").append(ENABLED_PROPERTY).append(").\n");
+        }
+        report.append(String.format(Locale.ROOT, "%-22s %9s %10s %9s %9s %9s\n",
+                "операция (время в мс)", "число", "среднее", "p50", "p99", "макс"));
+        for (TaskOperation operation : TaskOperation.values()) {
+            LatencyHistogram histogram = latency(operation);
+            long count = histogram.count();
+            if (count == 0) {
+                continue;
+            }
+            report.append(String.format(Locale.ROOT, "%-22s %9d %10.3f %9.3f %9.3f %9.3f\n",
+                    operation.getRussianName(), count, histogram.meanNanos() / 1e6,
+                    histogram.percentileNanos(50) / 1e6, histogram.percentileNanos(99) / 1e6,
+                    histogram.maxNanos() / 1e6));
+        }
+        report.append("записано байт: ").append(getBytesWritten()).append('\n');
+        report.append("пропущено строк: ").append(getLinesSkipped()).append('\n');
+        return report.toString();
+    }
+
+    // регистрация в платформенном MBeanServer под именем todo:type=TaskManager,file="<файл>"
+    synchronized boolean registerMBean(String filePath) {
+        if (registeredName != null) {
+            return true;
+        }
+        try {
+            ObjectName name = new ObjectName(OBJECT_NAME_PREFIX + ObjectName.quote(filePath));
+            ManagementFactory.getPlatformMBeanServer().registerMBean(this, name);
+            registeredName = name;
+            return true;
+        } catch (JMException e) {
+            ConsoleOutput.error("ошибка регистрации статистики в JMX: " + e.getMessage());
+            return false;
+        }
+    }
+
+    synchronized void unregisterMBean() {
+        if (registeredName == null) {
+            return;
+        }
+        try {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(registeredName);
+        } catch (JMException e) {
+            ConsoleOutput.error("ошибка снятия статистики с JMX: " + e.getMessage());
+        }
+        registeredName = null;
+    }
+
+    @Override
+    public String[] getOperations() {
+        String[] names = new String[latencies.length];
+        for (TaskOperation operation : TaskOperation.values()) {
+            names[operation.ordinal()] = operation.attributeName();
+        }
+        return names;
+    }
+
+    @Override
+    public long[] getCounts() {
+        long[] counts = new long[latencies.length];
+        Arrays.setAll(counts, i -> latencies[i].count());
+        return counts;
+    }
+
+    @Override
+    public double[] getMeanMicros() {
+        return micros(LatencyHistogram::meanNanos);
+    }
+
+    @Override
+    public double[] getP50Micros() {
+        return micros(histogram -> histogram.percentileNanos(50));
+    }
+
+    @Override
+    public double[] getP99Micros() {
+        return micros(histogram -> histogram.percentileNanos(99));
+    }
+
+    @Override
+    public double[] getMaxMicros() {
+        return micros(LatencyHistogram::maxNanos);
+    }
+
+    private double[] micros(ToDoubleFunction<LatencyHistogram> nanos) {
+        double[] values = new double[latencies.length];
+        Arrays.setAll(values, i -> nanos.applyAsDouble(latencies[i]) / 1e3);
+        return values;
+    }
+}
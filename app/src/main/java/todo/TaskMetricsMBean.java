@@ -0,0 +1,28 @@
+package todo;
+
+// статистика TaskManager в JMX (стандартный MBean, реализация - TaskMetrics).
+// Значения по операциям - массивы в порядке Operations (имена TaskOperation: Add, SearchKeyword...),
+// времена в микросекундах
+public interface TaskMetricsMBean {
+    boolean isEnabled();
+
+    void setEnabled(boolean enabled);
+
+    long getBytesWritten();
+
+    long getLinesSkipped();
+
+    String[] getOperations();
+
+    long[] getCounts();
+
+    double[] getMeanMicros();
+
+    double[] getP50Micros();
+
+    double[] getP99Micros();
+
+    double[] getMaxMicros();
+
+    void reset();
+}
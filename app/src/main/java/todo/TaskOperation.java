@@ -0,0 +1,43 @@
+package todo;
+
+import java.util.*;
+
+// операции TaskManager, число и время которых учитывает TaskMetrics
+enum TaskOperation {
+    LOAD("загрузка"),
+    SAVE("запись файла"),
+    ADD("добавление"),
+    UPDATE("изменение"),
+    REMOVE("удаление"),
+    GET("получение по ID"),
+    LIST("страница списка"),
+    SEARCH_KEYWORD("поиск по описанию"),
+    SEARCH_STATUS("поиск по статусу"),
+    SEARCH_PRIORITY("поиск по приоритету"),
+    NEXT_DUE("ближайшие по сроку"),
+    SORT("сортировка"),
+    CHANGE_FORMAT("смена формата"),
+    EXPORT("экспорт"),
+    IMPORT("импорт"),
+    FLUSH("сброс изменений"),
+    CLOSE("закрытие");
+
+    private final String russianName;
+
+    TaskOperation(String russianName) {
+        this.russianName = russianName;
+    }
+
+    public String getRussianName() {
+        return russianName;
+    }
+
+    // имя операции в JMX (атрибут Operations): SEARCH_KEYWORD -> SearchKeyword
+    String attributeName() {
+        StringBuilder name = new StringBuilder();
+        for (String part : name().split("_")) {
+            name.append(part.charAt(0)).append(part.substring(1).toLowerCase(Locale.ROOT));
+        }
+        return name.toString();
+    }
+}
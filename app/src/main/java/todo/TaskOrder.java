@@ -0,0 +1,8 @@
+package todo;
+
+// порядок хранения и вывода задач; сохраняется в заголовке файла
+enum TaskOrder {
+    INSERTION,
+    DEADLINE,
+    PRIORITY
+}
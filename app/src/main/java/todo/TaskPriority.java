@@ -0,0 +1,37 @@
+package todo;
+
+enum TaskPriority {
+    HIGH("1", "высокий"), 
+    MEDIUM("2", "средний"), 
+    LOW("3", "низкий");
+
+    private final String number;
+    private final String russianName;
+
+    TaskPriority(String number, String russianName) {
+        this.number = number;
+        this.russianName = russianName;
+    }
+
+    public String getNumber() {
+        return number;
+    }
+
+    public String getRussianName() {
+        return russianName;
+    }
+
+    public static TaskPriority fromNumber(String number) {
+        for (TaskPriority priority : values()) {
+            if (priority.getNumber().equals(number)) {
+                return priority;
+            }
+        }
+        return MEDIUM;
+    }
+
+    @Override
+    public String toString() {
+        return russianName;
+    }
+}
@@ -0,0 +1,24 @@
+package todo;
+
+import java.io.*;
+import java.util.*;
+
+// вывод списка задач, общий для меню и команд: по задаче в строке через один
+// переиспользуемый буфер, который передается в вывод частями, чтобы длинный список не копился целиком
+final class TaskRenderer {
+    private static final int CHUNK_SIZE = 32 * 1024;
+
+    private final StringBuilder buffer = new StringBuilder();
+
+    void print(Iterator<ToDoItem> tasks, PrintWriter out) {
+        buffer.setLength(0);
+        while (tasks.hasNext()) {
+            tasks.next().appendTo(buffer).append(System.lineSeparator());
+            if (buffer.length() >= CHUNK_SIZE) {
+                out.append(buffer);
+                buffer.setLength(0);
+            }
+        }
+        out.append(buffer);
+    }
+}
@@ -0,0 +1,24 @@
+package todo;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("todo.Save")
+@Label("запись файла задач")
+@Category("ToDo")
+final class TaskSaveEvent extends Event {
+    @Label("файл")
+    String path;
+    @Label("формат")
+    String format;
+    @Label("надежность")
+    String durability;
+    @Label("задач")
+    int tasks;
+    @Label("записано")
+    @DataAmount
+    long bytes;
+}
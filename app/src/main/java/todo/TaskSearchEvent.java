@@ -0,0 +1,20 @@
+package todo;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("todo.Search")
+@Label("поиск задач")
+@Category("ToDo")
+final class TaskSearchEvent extends Event {
+    @Label("условие")
+    String criterion;
+    @Label("значение")
+    String query;
+    @Label("всего задач")
+    int tasks;
+    @Label("найдено")
+    int found;
+}
@@ -0,0 +1,16 @@
+package todo;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("todo.Sort")
+@Label("сортировка задач")
+@Category("ToDo")
+final class TaskSortEvent extends Event {
+    @Label("порядок")
+    String order;
+    @Label("задач")
+    int tasks;
+}
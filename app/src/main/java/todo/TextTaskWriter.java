@@ -0,0 +1,212 @@
+package todo;
+
+import java.time.LocalDate;
+import java.util.*;
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.GatheringByteChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.charset.CodingErrorAction;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+// текстовый файл задач без промежуточных строк: поля задач кодируются прямо в прямые
+// буферы, заполненные буферы уходят в канал одной сборной записью. Кодировка та же,
+// что при загрузке и в журнале (Charset.defaultCharset()); UTF-8 кодируется вручную,
+// для прочих кодировок символы копятся в одном буфере и передаются CharsetEncoder
+final class TextTaskWriter {
+    private static final int SEGMENT_SIZE = 256 * 1024;
+    private static final int SEGMENT_COUNT = 4;
+    private static final int CHAR_BUFFER_SIZE = 8 * 1024;
+    // наибольшая длина одного символа UTF-8 в байтах
+    private static final int MAX_CHAR_BYTES = 4;
+    private static final byte REPLACEMENT = '?';
+    // буферы переиспользуются между сохранениями; экспорт и сжатие журнала
+    // могут писать одновременно с сохранением, поэтому у каждого свой писатель
+    private static final Queue<TextTaskWriter> IDLE_WRITERS = new ConcurrentLinkedQueue<>();
+
+    private final ByteBuffer[] segments = new ByteBuffer[SEGMENT_COUNT];
+    private final CharBuffer pendingChars = CharBuffer.allocate(CHAR_BUFFER_SIZE);
+    private final char[] dateChars = new char[10];
+    private ByteBuffer buffer;
+    private int segmentIndex;
+    private GatheringByteChannel channel;
+    // null, если кодировка UTF-8
+    private CharsetEncoder encoder;
+
+    private TextTaskWriter() {
+        for (int i = 0; i < SEGMENT_COUNT; i++) {
+            segments[i] = ByteBuffer.allocateDirect(SEGMENT_SIZE);
+        }
+    }
+
+    // канал не закрывается, чтобы вызывающий мог сбросить файл на диск
+    static void write(GatheringByteChannel channel, Collection<ToDoItem> items, StorageHeader header) throws IOException {
+        write(channel, items, header, Charset.defaultCharset());
+    }
+
+    static void write(GatheringByteChannel channel, Collection<ToDoItem> items, StorageHeader header,
+                      Charset charset) throws IOException {
+        TextTaskWriter writer = IDLE_WRITERS.poll();
+        if (writer == null) {
+            writer = new TextTaskWriter();
+        }
+        try {
+            writer.writeAll(channel, items, header, charset);
+        } finally {
+            writer.channel = null;
+            IDLE_WRITERS.offer(writer);
+        }
+    }
+
+    private void writeAll(GatheringByteChannel target, Collection<ToDoItem> items, StorageHeader header,
+                          Charset charset) throws IOException {
+        channel = target;
+        encoder = charset.equals(StandardCharsets.UTF_8) ? null : charset.newEncoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        for (ByteBuffer segment : segments) {
+            segment.clear();
+        }
+        pendingChars.clear();
+        segmentIndex = 0;
+        buffer = segments[0];
+
+        String lineSeparator = System.lineSeparator();
+        put(ToDoItem.storageHeader(header));
+        put(lineSeparator);
+        for (ToDoItem item : items) {
+            put(item.isCompleted() ? "+ " : "- ");
+            put(item.getPriorityLevel().getNumber());
+            put(" ");
+            put(item.getTaskId());
+            put(" ");
+            put(ToDoItem.escapeDescription(item.getTaskDescription()));
+            put(": ");
+            if (item.getDeadline() != null) {
+                putStorageDate(item.getDeadline());
+            }
+            put(lineSeparator);
+        }
+        if (encoder != null) {
+            encodePendingChars(true);
+            while (encoder.flush(buffer).isOverflow()) {
+                nextSegment();
+            }
+        }
+        drain();
+    }
+
+    // гггг-мм-дд вручную; годы вне 1-9999 формирует STORAGE_FORMATTER
+    private void putStorageDate(LocalDate date) throws IOException {
+        int year = date.getYear();
+        if (year < 1 || year > 9999) {
+            put(date.format(ToDoItem.STORAGE_FORMATTER));
+            return;
+        }
+        setTwoDigits(0, year / 100);
+        setTwoDigits(2, year % 100);
+        dateChars[4] = '-';
+        setTwoDigits(5, date.getMonthValue());
+        dateChars[7] = '-';
+        setTwoDigits(8, date.getDayOfMonth());
+        if (encoder != null) {
+            putPendingChars(dateChars, dateChars.length);
+            return;
+        }
+        if (buffer.remaining() < dateChars.length) {
+            nextSegment();
+        }
+        for (char c : dateChars) {
+            buffer.put((byte) c);
+        }
+    }
+
+    private void setTwoDigits(int index, int value) {
+        dateChars[index] = (char) ('0' + value / 10);
+        dateChars[index + 1] = (char) ('0' + value % 10);
+    }
+
+    private void put(String text) throws IOException {
+        if (encoder != null) {
+            putPendingChars(text, text.length());
+            return;
+        }
+        // одиночные суррогаты заменяются на '?', как в кодировщике UTF-8 из JDK
+        int length = text.length();
+        for (int i = 0; i < length; i++) {
+            if (buffer.remaining() < MAX_CHAR_BYTES) {
+                nextSegment();
+            }
+            char c = text.charAt(i);
+            if (c < 0x80) {
+                buffer.put((byte) c);
+            } else if (c < 0x800) {
+                buffer.put((byte) (0xC0 | c >> 6)).put((byte) (0x80 | c & 0x3F));
+            } else if (!Character.isSurrogate(c)) {
+                buffer.put((byte) (0xE0 | c >> 12)).put((byte) (0x80 | c >> 6 & 0x3F))
+                        .put((byte) (0x80 | c & 0x3F));
+            } else if (Character.isHighSurrogate(c) && i + 1 < length
+                    && Character.isLowSurrogate(text.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, text.charAt(++i));
+                buffer.put((byte) (0xF0 | codePoint >> 18)).put((byte) (0x80 | codePoint >> 12 & 0x3F))
+                        .put((byte) (0x80 | codePoint >> 6 & 0x3F)).put((byte) (0x80 | codePoint & 0x3F));
+            } else {
+                buffer.put(REPLACEMENT);
+            }
+        }
+    }
+
+    // text - String или char[]; символы копируются без промежуточных объектов
+    private void putPendingChars(Object text, int length) throws IOException {
+        for (int from = 0; from < length; ) {
+            if (!pendingChars.hasRemaining()) {
+                encodePendingChars(false);
+            }
+            int count = Math.min(pendingChars.remaining(), length - from);
+            int position = pendingChars.position();
+            if (text instanceof String string) {
+                string.getChars(from, from + count, pendingChars.array(), position);
+            } else {
+                System.arraycopy((char[]) text, from, pendingChars.array(), position, count);
+            }
+            pendingChars.position(position + count);
+            from += count;
+        }
+    }
+
+    // незаконченная суррогатная пара остается в буфере до следующей порции символов
+    private void encodePendingChars(boolean endOfInput) throws IOException {
+        pendingChars.flip();
+        while (encoder.encode(pendingChars, buffer, endOfInput).isOverflow()) {
+            nextSegment();
+        }
+        pendingChars.compact();
+    }
+
+    // переход к следующему буферу; когда заполнены все, они записываются вместе
+    private void nextSegment() throws IOException {
+        if (segmentIndex + 1 < SEGMENT_COUNT) {
+            buffer = segments[++segmentIndex];
+            return;
+        }
+        drain();
+    }
+
+    private void drain() throws IOException {
+        for (int i = 0; i <= segmentIndex; i++) {
+            segments[i].flip();
+        }
+        ByteBuffer last = segments[segmentIndex];
+        while (last.hasRemaining()) {
+            channel.write(segments, 0, segmentIndex + 1);
+        }
+        for (int i = 0; i <= segmentIndex; i++) {
+            segments[i].clear();
+        }
+        segmentIndex = 0;
+        buffer = segments[0];
+    }
+}
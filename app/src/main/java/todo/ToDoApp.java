@@ -0,0 +1,575 @@
+package todo;
+
+import java.text.ParseException;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.*;
+import java.io.*;
+import java.nio.file.Path;
+import jdk.jfr.Configuration;
+import jdk.jfr.Event;
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.Recording;
+
+public class ToDoApp {
+    private static final String DATA_FILE_PATH = "tasks.txt";
+    private static final String JFR_OPTION = "--jfr";
+    private static final PersistenceMode PERSISTENCE_MODE = PersistenceMode.JOURNAL;
+    // надежность записи по умолчанию; меняется свойством -Dtodo.durability=none|flush|fsync,
+    // а для команд без меню еще и параметром --durability
+    private static final String DURABILITY_PROPERTY = "todo.durability";
+    private static final DurabilityLevel DEFAULT_DURABILITY_LEVEL = DurabilityLevel.FSYNC;
+    private final TaskManager taskManager;
+    private final Scanner scanner;
+    private final TaskRenderer renderer = new TaskRenderer();
+
+    private static final int ADD = 1;
+    private static final int EDIT = 2;
+    private static final int DELETE = 3;
+    private static final int MARK_COMPLETE = 4;
+    private static final int SHOW_ALL = 5;
+    private static final int SORT_OPTIONS = 6;
+    private static final int SEARCH_OPTIONS = 7;
+    private static final int STORAGE_OPTIONS = 8;
+    private static final int NEXT_DUE_OPTION = 9;
+    private static final int STATS_OPTION = 10;
+    private static final int EXIT_APP = 0;
+
+    private static final int SORT_BY_DATE_OPTION = 1;
+    private static final int SORT_BY_PRIORITY_OPTION = 2;
+    private static final int SORT_BY_INSERTION_OPTION = 3;
+    private static final int BACK_OPTION = 0;
+
+    private static final int SEARCH_BY_DESC_OPTION = 1;
+    private static final int SEARCH_BY_STATUS_OPTION = 2;
+    private static final int SEARCH_BY_PRIORITY_OPTION = 3;
+
+    private static final int TEXT_FORMAT_OPTION = 1;
+    private static final int BINARY_FORMAT_OPTION = 2;
+    private static final int EXPORT_OPTION = 3;
+    private static final int IMPORT_OPTION = 4;
+
+    private static final int PAGE_SIZE = 20;
+    private static final int NEXT_DUE_COUNT = 20;
+    private static final String NEXT_PAGE = ">";
+    private static final String PREVIOUS_PAGE = "<";
+
+    public ToDoApp() {
+        this(DEFAULT_DURABILITY_LEVEL);
+    }
+
+    ToDoApp(DurabilityLevel durabilityLevel) {
+        taskManager = new TaskManager(DATA_FILE_PATH, PERSISTENCE_MODE);
+        taskManager.setDurabilityLevel(durabilityLevel);
+        taskManager.registerMetricsMBean();
+        scanner = new Scanner(System.in);
+    }
+
+    // с аргументами выполняется команда без меню (см. BatchCommands), без них - интерактивный режим;
+    // --jfr <файл> перед остальными аргументами включает запись JFR
+    public static void main(String[] args) {
+        args = startFlightRecording(args);
+        if (args == null) {
+            System.exit(BatchCommands.EXIT_USAGE);
+        }
+        String durabilityName = System.getProperty(DURABILITY_PROPERTY);
+        DurabilityLevel durabilityLevel = durabilityName != null
+                ? BatchCommands.parseDurability(durabilityName) : DEFAULT_DURABILITY_LEVEL;
+        if (durabilityLevel == null) {
+            System.err.println("неизвестная надежность записи в " + DURABILITY_PROPERTY + ": " + durabilityName
+                    + " (none, flush, fsync)");
+            System.exit(BatchCommands.EXIT_USAGE);
+        }
+        if (args.length > 0) {
+            int exitCode = BatchCommands.run(args, DATA_FILE_PATH, PERSISTENCE_MODE, durabilityLevel);
+            // после serve JVM уже завершается: System.exit из обработчика завершения зависнет
+            if (exitCode != BatchCommands.EXIT_OK) {
+                System.exit(exitCode);
+            }
+            return;
+        }
+        // меню открывает файл задач само: при запущенном демоне или serve изменения потерялись бы
+        TaskFileLock fileLock = TaskFileLock.acquire(DATA_FILE_PATH, new PrintWriter(System.err, true));
+        if (fileLock == null) {
+            System.exit(BatchCommands.EXIT_FAILED);
+        }
+        boolean loaded;
+        try (fileLock) {
+            ToDoApp app = new ToDoApp(durabilityLevel);
+            // поврежденный файл не открывается: любое сохранение заменило бы его пустым списком
+            loaded = !app.taskManager.isReadOnly();
+            if (loaded) {
+                app.start();
+            } else {
+                app.taskManager.close();
+                ConsoleOutput.error("файл задач " + DATA_FILE_PATH + " не загружен; исправьте его или восстановите из копии");
+            }
+        }
+        if (!loaded) {
+            System.exit(BatchCommands.EXIT_FAILED);
+        }
+    }
+
+    // запись JFR с событиями приложения (TaskLoadEvent, TaskSaveEvent, TaskSearchEvent, TaskSortEvent)
+    // и событиями JVM из настройки default; файл записывается при выходе из JVM, в том числе
+    // по Ctrl+C из serve и daemon. Возвращаются аргументы без --jfr или null при ошибке
+    private static String[] startFlightRecording(String[] args) {
+        int index = 0;
+        while (index < args.length && args[index].startsWith("--") && !args[index].equals(JFR_OPTION)) {
+            index += 2;
+        }
+        if (index >= args.length || !args[index].equals(JFR_OPTION)) {
+            return args;
+        }
+        if (index + 1 >= args.length) {
+            System.err.println("не указан файл для " + JFR_OPTION);
+            return null;
+        }
+        if (!FlightRecorder.isAvailable()) {
+            System.err.println("JFR недоступен в этой JVM");
+            return null;
+        }
+        Path destination = Path.of(args[index + 1]);
+        try {
+            Recording recording = new Recording(Configuration.getConfiguration("default"));
+            recording.setName("todo");
+            for (Class<? extends Event> eventClass : List.of(TaskLoadEvent.class, TaskSaveEvent.class,
+                    TaskSearchEvent.class, TaskSortEvent.class)) {
+                recording.enable(eventClass).withoutThreshold().withStackTrace();
+            }
+            recording.setDestination(destination);
+            recording.setDumpOnExit(true);
+            recording.start();
+        } catch (IOException | ParseException e) {
+            System.err.println("не удалось начать запись JFR: " + destination + " - " + e.getMessage());
+            return null;
+        }
+        List<String> rest = new ArrayList<>(Arrays.asList(args));
+        rest.subList(index, index + 2).clear();
+        return rest.toArray(new String[0]);
+    }
+
+    // основной цикл работы приложения
+    public void start() {
+        ConsoleOutput.println("добро пожаловать в to-do list!");
+        int userSelection;
+        // несохраненные изменения записываются и при обрыве ввода
+        try {
+            do {
+                showMainMenu();
+                userSelection = getUserInput("выберите опцию: ");
+
+                try {
+                    processMenuSelection(userSelection);
+                } catch (Exception e) {
+                    ConsoleOutput.println("ошибка: " + e.getMessage());
+                }
+                ConsoleOutput.println();
+            } while (userSelection != EXIT_APP);
+        } finally {
+            taskManager.close();
+            ConsoleOutput.flush();
+        }
+
+        ConsoleOutput.println("до свидания!");
+        ConsoleOutput.flush();
+        scanner.close();
+    }
+
+    private void showMainMenu() {
+        ConsoleOutput.println("========== главное меню ==========");
+        ConsoleOutput.println(ADD + ". добавить задачу");
+        ConsoleOutput.println(EDIT + ". редактировать задачу");
+        ConsoleOutput.println(DELETE + ". удалить задачу");
+        ConsoleOutput.println(MARK_COMPLETE + ". изменить статус выполнения");
+        ConsoleOutput.println(SHOW_ALL + ". показать все задачи");
+        ConsoleOutput.println(SORT_OPTIONS + ". настройки сортировки");
+        ConsoleOutput.println(SEARCH_OPTIONS + ". настройки поиска");
+        ConsoleOutput.println(STORAGE_OPTIONS + ". формат файла");
+        ConsoleOutput.println(NEXT_DUE_OPTION + ". ближайшие задачи по сроку");
+        ConsoleOutput.println(STATS_OPTION + ". статистика");
+        ConsoleOutput.println(EXIT_APP + ". выход");
+        ConsoleOutput.println("==================================");
+    }
+
+    private void processMenuSelection(int choice) {
+        switch (choice) {
+            case ADD -> createTask();
+            case EDIT -> modifyTask();
+            case DELETE -> removeTask();
+            case MARK_COMPLETE -> toggleTaskStatus();
+            case SHOW_ALL -> showAllTasks();
+            case SORT_OPTIONS -> showSortMenu();
+            case SEARCH_OPTIONS -> showSearchMenu();
+            case STORAGE_OPTIONS -> showStorageMenu();
+            case NEXT_DUE_OPTION -> showNextDueTasks();
+            case STATS_OPTION -> ConsoleOutput.print(taskManager.metrics().report());
+            case EXIT_APP -> {}
+            default -> ConsoleOutput.println("некорректный выбор.");
+        }
+    }
+
+    // создание новой задачи
+    private void createTask() {
+        ConsoleOutput.print("введите описание задачи: ");
+        String description = readLine().trim();
+
+        if (description.isEmpty()) {
+            ConsoleOutput.println("описание не может быть пустым.");
+            return;
+        }
+
+        LocalDate dueDate = null;
+        ConsoleOutput.print("введите срок выполнения (дд.мм.гггг) или оставьте пустым: ");
+        String inputDate = readLine().trim();
+        if (!inputDate.isEmpty()) {
+            try {
+                dueDate = LocalDate.parse(inputDate, ToDoItem.DATE_FORMATTER);
+            } catch (DateTimeParseException e) {
+                ConsoleOutput.println("некорректный формат даты. используйте формат дд.мм.гггг");
+            }
+        }
+
+        TaskPriority priority = getTaskPriority();
+        taskManager.addNewTask(description, dueDate, priority);
+    }
+
+    // вывод задач постранично: за раз читается и форматируется одна страница.
+    // Список, помещающийся на одну страницу, выводится как раньше, без запроса
+    private void showAllTasks() {
+        int offset = 0;
+        while (true) {
+            Iterator<ToDoItem> page = taskManager.listTasks(null, null, offset, PAGE_SIZE + 1);
+            List<ToDoItem> pageItems = new ArrayList<>(PAGE_SIZE);
+            while (pageItems.size() < PAGE_SIZE && page.hasNext()) {
+                pageItems.add(page.next());
+            }
+            boolean hasNextPage = page.hasNext();
+            if (pageItems.isEmpty()) {
+                if (offset == 0) {
+                    ConsoleOutput.println("список задач пуст.");
+                    return;
+                }
+                // задачи удалены из другого потока: возврат на предыдущую страницу
+                offset = Math.max(offset - PAGE_SIZE, 0);
+                continue;
+            }
+
+            boolean paged = offset > 0 || hasNextPage;
+            ConsoleOutput.println(paged
+                    ? "\n--- все задачи, страница " + (offset / PAGE_SIZE + 1) + " ---"
+                    : "\n--- все задачи ---");
+            printTasks(pageItems);
+            ConsoleOutput.println("-------------------\n");
+            if (!paged) {
+                return;
+            }
+
+            ConsoleOutput.print("следующая страница - " + NEXT_PAGE + ", предыдущая - " + PREVIOUS_PAGE
+                    + ", выход - пустая строка: ");
+            String command = readLine().trim();
+            if (command.equals(NEXT_PAGE)) {
+                if (hasNextPage) {
+                    offset += PAGE_SIZE;
+                }
+            } else if (command.equals(PREVIOUS_PAGE)) {
+                offset = Math.max(offset - PAGE_SIZE, 0);
+            } else {
+                return;
+            }
+        }
+    }
+
+    // редактирование существующей задачи
+    private void modifyTask() {
+        showAllTasks();
+        ConsoleOutput.print("введите ID задачи для редактирования: ");
+        String taskId = readLine().trim();
+
+        Optional<ToDoItem> taskOpt = taskManager.getTaskById(taskId);
+        if (taskOpt.isEmpty()) {
+            ConsoleOutput.println("задача не найдена.");
+            return;
+        }
+
+        ToDoItem task = taskOpt.get();
+        ConsoleOutput.println("редактирование: " + task);
+
+        ConsoleOutput.print("новое описание (пусто - не менять): ");
+        String newDescription = readLine().trim();
+
+        LocalDate newDueDate = null;
+        ConsoleOutput.print("новый срок (дд.мм.гггг, пусто - не менять): ");
+        String newDateInput = readLine().trim();
+        if (!newDateInput.isEmpty()) {
+            try {
+                newDueDate = LocalDate.parse(newDateInput, ToDoItem.DATE_FORMATTER);
+            } catch (DateTimeParseException e) {
+                ConsoleOutput.println("некорректный формат даты. используйте формат дд.мм.гггг");
+            }
+        }
+
+        ConsoleOutput.print("изменить приоритет? (+/-): ");
+        TaskPriority newPriority = null;
+        if (readLine().trim().equalsIgnoreCase("+")) {
+            newPriority = getTaskPriority();
+        }
+
+        ConsoleOutput.print("изменить статус выполнения? (+/-): ");
+        Boolean newStatus = null;
+        if (readLine().trim().equalsIgnoreCase("+")) {
+            ConsoleOutput.print("задача выполнена? (+/-): ");
+            newStatus = readLine().trim().equalsIgnoreCase("+");
+        }
+
+        taskManager.updateTask(task, newDescription, newDueDate, newPriority, newStatus);
+    }
+
+    private void removeTask() {
+        showAllTasks();
+        ConsoleOutput.print("введите ID задачи для удаления: ");
+        String taskId = readLine().trim();
+        taskManager.removeTask(taskId);
+    }
+
+    // изменение статуса выполнения задачи
+    private void toggleTaskStatus() {
+        showAllTasks();
+        ConsoleOutput.print("введите ID задачи для изменения статуса: ");
+        String taskId = readLine().trim();
+
+        Optional<ToDoItem> taskOpt = taskManager.getTaskById(taskId);
+        if (taskOpt.isEmpty()) {
+            ConsoleOutput.println("задача не найдена.");
+            return;
+        }
+
+        ToDoItem task = taskOpt.get();
+        boolean newStatus = !task.isCompleted();
+        taskManager.updateTask(task, null, null, null, newStatus);
+        ConsoleOutput.println("статус изменен на: " + (newStatus ? "выполнена" : "не выполнена"));
+    }
+
+    // меню сортировки
+    private void showSortMenu() {
+        int choice;
+        do {
+            ConsoleOutput.println("\n--- меню сортировки ---");
+            ConsoleOutput.println(SORT_BY_DATE_OPTION + ". по дате");
+            ConsoleOutput.println(SORT_BY_PRIORITY_OPTION + ". по приоритету");
+            ConsoleOutput.println(SORT_BY_INSERTION_OPTION + ". по порядку добавления");
+            ConsoleOutput.println(BACK_OPTION + ". назад");
+            ConsoleOutput.println("-----------------------");
+
+            choice = getUserInput("выберите опцию: ");
+
+            switch (choice) {
+                case SORT_BY_DATE_OPTION -> {
+                    taskManager.sortByDeadline();
+                    showAllTasks();
+                    return;
+                }
+                case SORT_BY_PRIORITY_OPTION -> {
+                    taskManager.sortByPriority();
+                    showAllTasks();
+                    return;
+                }
+                case SORT_BY_INSERTION_OPTION -> {
+                    taskManager.sortByInsertionOrder();
+                    showAllTasks();
+                    return;
+                }
+                case BACK_OPTION -> {}
+                default -> ConsoleOutput.println("некорректный выбор.");
+            }
+        } while (choice != BACK_OPTION);
+    }
+
+    // меню поиска
+    private void showSearchMenu() {
+        int choice;
+        do {
+            ConsoleOutput.println("\n--- меню поиска ---");
+            ConsoleOutput.println(SEARCH_BY_DESC_OPTION + ". поиск по описанию");
+            ConsoleOutput.println(SEARCH_BY_STATUS_OPTION + ". поиск по статусу");
+            ConsoleOutput.println(SEARCH_BY_PRIORITY_OPTION + ". поиск по приоритету");
+            ConsoleOutput.println(BACK_OPTION + ". назад");
+            ConsoleOutput.println("-------------------");
+
+            choice = getUserInput("выберите опцию: ");
+
+            switch (choice) {
+                case SEARCH_BY_DESC_OPTION -> {
+                    searchByDescription();
+                    return;
+                }
+                case SEARCH_BY_STATUS_OPTION -> {
+                    searchByCompletionStatus();
+                    return;
+                }
+                case SEARCH_BY_PRIORITY_OPTION -> {
+                    searchByTaskPriority();
+                    return;
+                }
+                case BACK_OPTION -> {}
+                default -> ConsoleOutput.println("некорректный выбор.");
+            }
+        } while (choice != BACK_OPTION);
+    }
+
+    // меню формата файла: перевод основного файла и экспорт в другой файл
+    private void showStorageMenu() {
+        int choice;
+        do {
+            ConsoleOutput.println("\n--- формат файла (сейчас: " + taskManager.getStorageFormat().getRussianName() + ") ---");
+            ConsoleOutput.println(TEXT_FORMAT_OPTION + ". перевести в текстовый формат");
+            ConsoleOutput.println(BINARY_FORMAT_OPTION + ". перевести в двоичный формат");
+            ConsoleOutput.println(EXPORT_OPTION + ". экспорт в файл");
+            ConsoleOutput.println(IMPORT_OPTION + ". импорт задач из файла");
+            ConsoleOutput.println(BACK_OPTION + ". назад");
+            ConsoleOutput.println("-------------------");
+
+            choice = getUserInput("выберите опцию: ");
+
+            switch (choice) {
+                case TEXT_FORMAT_OPTION -> {
+                    taskManager.changeStorageFormat(StorageFormat.TEXT);
+                    return;
+                }
+                case BINARY_FORMAT_OPTION -> {
+                    taskManager.changeStorageFormat(StorageFormat.BINARY);
+                    return;
+                }
+                case EXPORT_OPTION -> {
+                    exportTasks();
+                    return;
+                }
+                case IMPORT_OPTION -> {
+                    importTasks();
+                    return;
+                }
+                case BACK_OPTION -> {}
+                default -> ConsoleOutput.println("некорректный выбор.");
+            }
+        } while (choice != BACK_OPTION);
+    }
+
+    private void exportTasks() {
+        ConsoleOutput.print("введите путь к файлу: ");
+        String path = readLine().trim();
+        if (path.isEmpty()) {
+            ConsoleOutput.println("путь не может быть пустым.");
+            return;
+        }
+        ConsoleOutput.print("двоичный формат? (+/-): ");
+        StorageFormat format = readLine().trim().equalsIgnoreCase("+")
+                ? StorageFormat.BINARY : StorageFormat.TEXT;
+        taskManager.exportSnapshot(Path.of(path), format);
+    }
+
+    private void importTasks() {
+        ConsoleOutput.print("введите путь к файлу: ");
+        String path = readLine().trim();
+        if (path.isEmpty()) {
+            ConsoleOutput.println("путь не может быть пустым.");
+            return;
+        }
+        ImportSummary summary = taskManager.importTasks(Path.of(path));
+        if (summary == null) {
+            return;
+        }
+        ConsoleOutput.println("импортировано задач: " + summary.imported());
+        if (summary.skippedReport() != null) {
+            ConsoleOutput.println(summary.skippedReport());
+        }
+        if (!summary.saved()) {
+            ConsoleOutput.println("импортированные задачи не сохранены в файл.");
+        }
+    }
+
+    private void showNextDueTasks() {
+        List<ToDoItem> nextTasks = taskManager.nextDue(NEXT_DUE_COUNT);
+        showSearchResults(nextTasks, "ближайшие " + NEXT_DUE_COUNT + " задач по сроку");
+    }
+
+    private void searchByDescription() {
+        ConsoleOutput.print("введите ключевое слово: ");
+        String keyword = readLine().trim();
+        List<ToDoItem> foundTasks = taskManager.searchByKeyword(keyword);
+        showSearchResults(foundTasks, "результаты поиска: '" + keyword + "'");
+    }
+
+    private void searchByCompletionStatus() {
+        ConsoleOutput.print("показать выполненные? (+/-): ");
+        boolean completedStatus = readLine().trim().equalsIgnoreCase("+");
+        List<ToDoItem> foundTasks = taskManager.searchByCompletionStatus(completedStatus);
+        showSearchResults(foundTasks, completedStatus ? "выполненные задачи" : "невыполненные задачи");
+    }
+
+    private void searchByTaskPriority() {
+        TaskPriority priority = getTaskPriority();
+        List<ToDoItem> foundTasks = taskManager.searchByPriority(priority);
+        showSearchResults(foundTasks, "задачи с приоритетом " + priority.getRussianName());
+    }
+
+    private void printTasks(List<ToDoItem> tasks) {
+        renderer.print(tasks.iterator(), ConsoleOutput.writer());
+    }
+
+    // отображение результатов поиска
+    private void showSearchResults(List<ToDoItem> results, String title) {
+        if (results.isEmpty()) {
+            ConsoleOutput.println("задачи не найдены.");
+            return;
+        }
+        ConsoleOutput.println("\n--- " + title + " ---");
+        printTasks(results);
+        ConsoleOutput.println("--------------------------------\n");
+    }
+
+    // выбор приоритета задачи
+    private TaskPriority getTaskPriority() {
+        while (true) {
+            ConsoleOutput.println("выберите приоритет:");
+            ConsoleOutput.println("1 - высокий");
+            ConsoleOutput.println("2 - средний"); 
+            ConsoleOutput.println("3 - низкий");
+            ConsoleOutput.print("ваш выбор: ");
+            
+            String input = readLine().trim();
+            switch (input) {
+                case "1" -> { 
+                    ConsoleOutput.println("выбран высокий приоритет");
+                    return TaskPriority.HIGH; 
+                }
+                case "2" -> { 
+                    ConsoleOutput.println("выбран средний приоритет");
+                    return TaskPriority.MEDIUM; 
+                }
+                case "3" -> { 
+                    ConsoleOutput.println("выбран низкий приоритет");
+                    return TaskPriority.LOW; 
+                }
+                default -> ConsoleOutput.println("неверный ввод. введите 1, 2 или 3.");
+            }
+        }
+    }
+
+    // перед ожиданием ввода пользователь должен увидеть весь накопленный вывод
+    private String readLine() {
+        ConsoleOutput.flush();
+        return scanner.nextLine();
+    }
+
+    // ввод числового значения
+    private int getUserInput(String prompt) {
+        ConsoleOutput.print(prompt);
+        while (true) {
+            try {
+                return Integer.parseInt(readLine().trim());
+            } catch (NumberFormatException e) {
+                ConsoleOutput.print("введите число: ");
+            }
+        }
+    }
+}
@@ -0,0 +1,335 @@
+package todo;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.*;
+
+// задача неизменяема: изменение создает новую задачу с тем же ID
+class ToDoItem {
+    private final String taskId;
+    private final String taskDescription;
+    private final LocalDate deadline;
+    private final TaskPriority priorityLevel;
+    private final boolean completed;
+    
+    public static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("dd.MM.yyyy");
+    public static final DateTimeFormatter STORAGE_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd");
+    // первая строка файла в формате с ID; файлы без нее читаются в старом формате.
+    // После нее могут следовать порядок и наибольший выданный ID: "# todo v2 order=deadline last-id=42".
+    // В формате v2 описание экранируется (см. escapeDescription)
+    public static final String STORAGE_HEADER = "# todo v2";
+    private static final String ORDER_OPTION = "order=";
+    private static final String LAST_ID_OPTION = "last-id=";
+
+    // постоянные части строки вывода; часть с приоритетом своя для каждого TaskPriority
+    private static final String OPEN_PREFIX = "[✗] (ID: ";
+    private static final String COMPLETED_PREFIX = "[✓] (ID: ";
+    private static final String[] PRIORITY_SEGMENTS = Arrays.stream(TaskPriority.values())
+            .map(priority -> ") | приоритет: " + priority.getRussianName() + " | срок: ")
+            .toArray(String[]::new);
+    private static final String NO_DEADLINE_TEXT = "без сроков";
+    private static final String DESCRIPTION_SEGMENT = " | описание: ";
+    private static final int DISPLAY_LENGTH_ESTIMATE = 80;
+
+    public ToDoItem(String taskId, String taskDescription, LocalDate deadline, TaskPriority priorityLevel, boolean completed) {
+        this.taskId = taskId;
+        this.taskDescription = taskDescription;
+        this.deadline = deadline;
+        this.priorityLevel = priorityLevel;
+        this.completed = completed;
+    }
+
+    public String getTaskId() { return taskId; }
+    public String getTaskDescription() { return taskDescription; }
+    public LocalDate getDeadline() { return deadline; }
+    public TaskPriority getPriorityLevel() { return priorityLevel; }
+    public boolean isCompleted() { return completed; }
+
+    public ToDoItem withTaskDescription(String description) { return new ToDoItem(taskId, description, deadline, priorityLevel, completed); }
+    public ToDoItem withDeadline(LocalDate deadline) { return new ToDoItem(taskId, taskDescription, deadline, priorityLevel, completed); }
+    public ToDoItem withPriorityLevel(TaskPriority priority) { return new ToDoItem(taskId, taskDescription, deadline, priority, completed); }
+    public ToDoItem withCompleted(boolean status) { return new ToDoItem(taskId, taskDescription, deadline, priorityLevel, status); }
+
+    // формат для хранения в файле
+    public String toStorageFormat() {
+        String priorityNumber = priorityLevel.getNumber();
+        String datePart = deadline != null ? deadline.format(STORAGE_FORMATTER) : "";
+        String statusSymbol = completed ? "+" : "-";
+        return statusSymbol + " " + priorityNumber + " " + taskId + " " + escapeDescription(taskDescription) + ": " + datePart;
+    }
+
+    // описание в строке v2: "\" -> "\\", перевод строки -> "\n", возврат каретки -> "\r",
+    // ": " -> "\: ", поэтому строка задачи всегда одна и первый неэкранированный ": " - разделитель
+    static String escapeDescription(String description) {
+        if (!needsEscaping(description)) {
+            return description;
+        }
+        StringBuilder escaped = new StringBuilder(description.length() + 8);
+        for (int i = 0; i < description.length(); i++) {
+            char c = description.charAt(i);
+            switch (c) {
+                case '\\' -> escaped.append("\\\\");
+                case '\n' -> escaped.append("\\n");
+                case '\r' -> escaped.append("\\r");
+                case ':' -> escaped.append(i + 1 < description.length() && description.charAt(i + 1) == ' ' ? "\\:" : ":");
+                default -> escaped.append(c);
+            }
+        }
+        return escaped.toString();
+    }
+
+    private static boolean needsEscaping(String description) {
+        for (int i = 0; i < description.length(); i++) {
+            char c = description.charAt(i);
+            if (c == '\\' || c == '\n' || c == '\r'
+                    || (c == ':' && i + 1 < description.length() && description.charAt(i + 1) == ' ')) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // неизвестные последовательности и одиночная '\' в конце остаются как есть
+    private static String unescapeDescription(CharSequence text, int start, int end) {
+        StringBuilder description = null;
+        for (int i = start; i < end; i++) {
+            char c = text.charAt(i);
+            if (c != '\\' || i + 1 == end) {
+                if (description != null) {
+                    description.append(c);
+                }
+                continue;
+            }
+            if (description == null) {
+                description = new StringBuilder(end - start).append(text, start, i);
+            }
+            char next = text.charAt(++i);
+            switch (next) {
+                case '\\' -> description.append('\\');
+                case 'n' -> description.append('\n');
+                case 'r' -> description.append('\r');
+                case ':' -> description.append(':');
+                default -> description.append(c).append(next);
+            }
+        }
+        return description != null ? description.toString() : text.subSequence(start, end).toString();
+    }
+
+    @Override
+    public String toString() {
+        return appendTo(new StringBuilder(DISPLAY_LENGTH_ESTIMATE + taskDescription.length())).toString();
+    }
+
+    // вывод задачи в том же виде, что и toString(), без String.format и промежуточных строк
+    public StringBuilder appendTo(StringBuilder builder) {
+        builder.append(completed ? COMPLETED_PREFIX : OPEN_PREFIX).append(taskId)
+                .append(PRIORITY_SEGMENTS[priorityLevel.ordinal()]);
+        if (deadline != null) {
+            appendDisplayDate(builder, deadline);
+        } else {
+            builder.append(NO_DEADLINE_TEXT);
+        }
+        return builder.append(DESCRIPTION_SEGMENT).append(taskDescription);
+    }
+
+    // дд.мм.гггг вручную; годы вне 1-9999 формирует DATE_FORMATTER
+    private static void appendDisplayDate(StringBuilder builder, LocalDate date) {
+        int year = date.getYear();
+        if (year < 1 || year > 9999) {
+            builder.append(date.format(DATE_FORMATTER));
+            return;
+        }
+        appendTwoDigits(builder, date.getDayOfMonth());
+        builder.append('.');
+        appendTwoDigits(builder, date.getMonthValue());
+        builder.append('.');
+        appendTwoDigits(builder, year / 100);
+        appendTwoDigits(builder, year % 100);
+    }
+
+    private static void appendTwoDigits(StringBuilder builder, int value) {
+        builder.append((char) ('0' + value / 10)).append((char) ('0' + value % 10));
+    }
+
+    // управляющие символы (переводы строк, табуляция и т.п.) не дают показать описание
+    // одной строкой; в меню их не ввести, команды и HTTP API такие описания отклоняют
+    static boolean hasControlCharacters(String description) {
+        for (int i = 0; i < description.length(); i++) {
+            if (Character.isISOControl(description.charAt(i))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public static String storageHeader(StorageHeader header) {
+        StringBuilder line = new StringBuilder(STORAGE_HEADER);
+        if (header.order() != TaskOrder.INSERTION) {
+            line.append(' ').append(ORDER_OPTION).append(header.order().name().toLowerCase(Locale.ROOT));
+        }
+        if (header.lastTaskId() > 0) {
+            line.append(' ').append(LAST_ID_OPTION).append(header.lastTaskId());
+        }
+        return line.toString();
+    }
+
+    // порядок и последний ID из строки заголовка или null, если строка не является заголовком;
+    // неизвестные и неверные параметры пропускаются
+    public static StorageHeader parseStorageHeader(String line) {
+        if (!line.startsWith(STORAGE_HEADER)) {
+            return null;
+        }
+        if (line.length() == STORAGE_HEADER.length()) {
+            return StorageHeader.DEFAULT;
+        }
+        if (line.charAt(STORAGE_HEADER.length()) != ' ') {
+            return null;
+        }
+        TaskOrder order = TaskOrder.INSERTION;
+        long lastTaskId = 0;
+        for (String option : line.substring(STORAGE_HEADER.length() + 1).split(" ")) {
+            if (option.startsWith(ORDER_OPTION)) {
+                String name = option.substring(ORDER_OPTION.length()).toUpperCase(Locale.ROOT);
+                for (TaskOrder candidate : TaskOrder.values()) {
+                    if (candidate.name().equals(name)) {
+                        order = candidate;
+                    }
+                }
+            } else if (option.startsWith(LAST_ID_OPTION)) {
+                try {
+                    lastTaskId = Math.max(0, Long.parseLong(option.substring(LAST_ID_OPTION.length())));
+                } catch (NumberFormatException e) {
+                    // файл читается и без последнего ID
+                }
+            }
+        }
+        return new StorageHeader(order, lastTaskId);
+    }
+
+    // создание объекта из строки файла
+    public static ToDoItem fromStorageFormat(String storageString) {
+        return fromStorageFormat(storageString, true);
+    }
+
+    // строки старого формата не содержат ID, у созданной задачи он равен null
+    public static ToDoItem fromStorageFormat(String storageString, boolean hasTaskId) {
+        return parseStorageFormat(storageString, 0, storageString.length(), hasTaskId, true);
+    }
+
+    // разбор без вывода ошибок: для параллельной загрузки, где сообщения
+    // выводятся позже в порядке строк файла
+    static ToDoItem parseQuietly(CharSequence text, int start, int end, boolean hasTaskId) {
+        return parseStorageFormat(text, start, end, hasTaskId, false);
+    }
+
+    // разбор строки "<+|-> <приоритет> <ID> <описание>: <гггг-мм-дд>" за один проход
+    // по индексам, без промежуточных строк и регулярных выражений; в строках с ID
+    // описание экранировано, и экранированный ": " разделителем не считается
+    private static ToDoItem parseStorageFormat(CharSequence text, int start, int end, boolean hasTaskId,
+                                               boolean reportErrors) {
+        try {
+            int length = end - start;
+            char status = length >= 2 ? text.charAt(start) : 0;
+            if ((status != '+' && status != '-') || text.charAt(start + 1) != ' ') {
+                if (reportErrors) ConsoleOutput.error("неверный формат строки: " + text.subSequence(start, end));
+                return null;
+            }
+            boolean isCompleted = status == '+';
+
+            int contentStart = start + 2;
+            int separator = -1;
+            for (int i = contentStart; i + 1 < end; i++) {
+                char c = text.charAt(i);
+                if (c == '\\' && hasTaskId) {
+                    i++;
+                } else if (c == ':' && text.charAt(i + 1) == ' ') {
+                    separator = i;
+                    break;
+                }
+            }
+            int space = -1;
+            for (int i = contentStart; i < separator; i++) {
+                if (text.charAt(i) == ' ') {
+                    space = i;
+                    break;
+                }
+            }
+            int descriptionStart = space + 1;
+            String id = null;
+            if (space >= 0 && hasTaskId) {
+                int idEnd = -1;
+                for (int i = descriptionStart; i < separator; i++) {
+                    if (text.charAt(i) == ' ') {
+                        idEnd = i;
+                        break;
+                    }
+                }
+                if (idEnd > descriptionStart) {
+                    id = text.subSequence(descriptionStart, idEnd).toString();
+                    descriptionStart = idEnd + 1;
+                }
+            }
+            if (separator < 0 || space < 0 || (hasTaskId && id == null)) {
+                if (reportErrors) ConsoleOutput.error("неверный формат строки: " + text.subSequence(start, end));
+                return null;
+            }
+
+            TaskPriority priority = TaskPriority.MEDIUM;
+            if (space - contentStart == 1) {
+                switch (text.charAt(contentStart)) {
+                    case '1' -> priority = TaskPriority.HIGH;
+                    case '3' -> priority = TaskPriority.LOW;
+                    default -> {}
+                }
+            }
+            String description = hasTaskId
+                    ? unescapeDescription(text, descriptionStart, separator)
+                    : text.subSequence(descriptionStart, separator).toString();
+
+            LocalDate dueDate = null;
+            int dateStart = separator + 2;
+            if (dateStart < end) {
+                dueDate = parseStorageDate(text, dateStart, end);
+            }
+
+            return new ToDoItem(id, description, dueDate, priority, isCompleted);
+
+        } catch (DateTimeParseException e) {
+            if (reportErrors) ConsoleOutput.error("ошибка парсинга даты: " + text.subSequence(start, end) + " - " + e.getMessage());
+            return null;
+        } catch (Exception e) {
+            if (reportErrors) ConsoleOutput.error("ошибка парсинга: " + text.subSequence(start, end) + " - " + e.getMessage());
+            return null;
+        }
+    }
+
+    // дата "гггг-мм-дд" разбирается по цифрам; все остальные случаи, включая
+    // ошибочные, передаются STORAGE_FORMATTER ради прежних сообщений об ошибках
+    private static LocalDate parseStorageDate(CharSequence text, int start, int end) {
+        if (end - start == 10 && text.charAt(start + 4) == '-' && text.charAt(start + 7) == '-') {
+            int year = digits(text, start, start + 4);
+            int month = digits(text, start + 5, start + 7);
+            int day = digits(text, start + 8, start + 10);
+            if (year >= 1 && month >= 1 && month <= 12 && day >= 1 && day <= 31) {
+                // как ResolverStyle.SMART: 30 февраля превращается в последний день месяца
+                YearMonth yearMonth = YearMonth.of(year, month);
+                return yearMonth.atDay(Math.min(day, yearMonth.lengthOfMonth()));
+            }
+        }
+        return LocalDate.parse(text.subSequence(start, end), STORAGE_FORMATTER);
+    }
+
+    private static int digits(CharSequence text, int start, int end) {
+        int value = 0;
+        for (int i = start; i < end; i++) {
+            char c = text.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+}
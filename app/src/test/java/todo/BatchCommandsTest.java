@@ -0,0 +1,205 @@
+package todo;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BatchCommandsTest {
+    @TempDir
+    Path directory;
+    private PrintWriter consoleWriter;
+    private TaskManager taskManager;
+    private StringWriter out;
+    private StringWriter err;
+    private BatchCommands commands;
+
+    @BeforeEach
+    void openCommands() {
+        consoleWriter = ConsoleOutput.writer();
+        ConsoleOutput.setWriter(new PrintWriter(Writer.nullWriter()));
+        ConsoleOutput.setErrorStream(new PrintStream(OutputStream.nullOutputStream()));
+        taskManager = new TaskManager(directory.resolve("tasks.txt").toString());
+        out = new StringWriter();
+        err = new StringWriter();
+        commands = new BatchCommands(taskManager, new PrintWriter(out), new PrintWriter(err), directory, false);
+    }
+
+    @AfterEach
+    void closeCommands() {
+        taskManager.close();
+        ConsoleOutput.setWriter(consoleWriter);
+        ConsoleOutput.setErrorStream(System.err);
+    }
+
+    @Test
+    void addListDoneAndRemove() {
+        assertEquals(BatchCommands.EXIT_OK, execute("add", "купить", "молоко", "--due", "01.12.2026", "--priority", "1"));
+        assertEquals(BatchCommands.EXIT_OK, execute("add", "позвонить"));
+        assertEquals(lines("1", "2"), takeOut());
+
+        assertEquals(BatchCommands.EXIT_OK, execute("done", "2"));
+        assertEquals(BatchCommands.EXIT_OK, execute("list"));
+        assertEquals(lines(task("1"), task("2")), takeOut());
+        assertEquals(BatchCommands.EXIT_OK, execute("list", "--done"));
+        assertEquals(lines(task("2")), takeOut());
+        assertEquals(BatchCommands.EXIT_OK, execute("list", "--open", "--order", "priority", "--limit", "5"));
+        assertEquals(lines(task("1")), takeOut());
+        assertEquals(BatchCommands.EXIT_OK, execute("search", "МОЛОКО"));
+        assertEquals(lines(task("1")), takeOut());
+
+        assertEquals(BatchCommands.EXIT_FAILED, execute("done", "1", "99"));
+        assertTrue(taskManager.getTaskById("1").orElseThrow().isCompleted());
+        assertEquals(BatchCommands.EXIT_FAILED, execute("rm", "2", "2"));
+        assertEquals(lines("задача не найдена: 99", "задача не найдена: 2"), err.toString());
+        assertTrue(taskManager.getTaskById("2").isEmpty());
+        assertEquals("", out.toString());
+    }
+
+    @Test
+    void invalidArgumentsAreUsageErrors() {
+        List<List<String>> invalid = List.of(
+                List.of("add"),
+                List.of("add", "задача", "--due", "2026-12-01"),
+                List.of("add", "задача", "--priority", "4"),
+                List.of("add", "задача", "--color", "red"),
+                List.of("add", "две\nстроки"),
+                List.of("list", "--open", "--done"),
+                List.of("list", "--limit", "-1"),
+                List.of("list", "--order", "random"),
+                List.of("list", "лишнее"),
+                List.of("search", " "),
+                List.of("done"),
+                List.of("rm"),
+                List.of("import"),
+                List.of("stats", "лишнее"),
+                List.of("daemon"));
+        for (List<String> command : invalid) {
+            err.getBuffer().setLength(0);
+            assertEquals(BatchCommands.EXIT_USAGE, commands.execute(command), command.toString());
+            assertFalse(err.toString().isEmpty(), command.toString());
+            assertFalse(err.toString().contains("использование:"), command.toString());
+        }
+        err.getBuffer().setLength(0);
+        assertEquals(BatchCommands.EXIT_USAGE, execute("unknown"));
+        assertTrue(err.toString().startsWith("неизвестная команда: unknown"), err.toString());
+        assertTrue(err.toString().contains("использование:"));
+        assertEquals(0, taskManager.listTasks(null, null, 0, Integer.MAX_VALUE).hasNext() ? 1 : 0);
+        assertEquals("", out.toString());
+    }
+
+    @Test
+    void longListIsPrintedWhole() {
+        StringBuilder expected = new StringBuilder();
+        for (int i = 0; i < 3000; i++) {
+            String id = taskManager.addNewTask("задача с длинным описанием номер " + i, null, TaskPriority.LOW);
+            expected.append(task(id)).append(System.lineSeparator());
+        }
+        assertEquals(BatchCommands.EXIT_OK, execute("list"));
+        assertEquals(expected.toString(), out.toString());
+    }
+
+    @Test
+    void listPrintsRequestedPage() {
+        for (int i = 0; i < 5; i++) {
+            taskManager.addNewTask("задача " + i, null, TaskPriority.values()[i % 3]);
+        }
+        assertEquals(BatchCommands.EXIT_OK, execute("list", "--offset", "1", "--limit", "2"));
+        assertEquals(lines(task("2"), task("3")), takeOut());
+        assertEquals(BatchCommands.EXIT_OK, execute("list", "--order", "priority", "--offset", "3"));
+        assertEquals(lines(task("5"), task("3")), takeOut());
+        assertEquals(BatchCommands.EXIT_OK, execute("list", "--offset", "5"));
+        assertEquals(BatchCommands.EXIT_OK, execute("list", "--limit", "0"));
+        assertEquals("", takeOut());
+        assertEquals(BatchCommands.EXIT_USAGE, execute("list", "--offset", "x"));
+    }
+
+    @Test
+    void importReportsSkippedLines() throws IOException {
+        Files.writeString(directory.resolve("import.txt"), "- 1 первая: \nневерная строка\n+ 3 вторая: 2026-01-31\n");
+        assertEquals(BatchCommands.EXIT_OK, execute("import", "import.txt"));
+        assertEquals(lines("2"), takeOut());
+        assertEquals(lines("пропущено строк: 1 (номера: 2)"), err.toString());
+
+        err.getBuffer().setLength(0);
+        assertEquals(BatchCommands.EXIT_FAILED, execute("import", "missing.txt"));
+        assertEquals("", out.toString());
+    }
+
+    @Test
+    void scriptReportsFailedLinesAndWorstExitCode() {
+        int exitCode = commands.runScript(List.of(
+                "# комментарий",
+                "add \"купить: молоко\" --priority 1",
+                "",
+                "done 42",
+                "add \"незакрытая",
+                "list"));
+        assertEquals(BatchCommands.EXIT_USAGE, exitCode);
+        assertEquals("купить: молоко", taskManager.getTaskById("1").orElseThrow().getTaskDescription());
+        assertEquals(lines("1", task("1")), out.toString());
+        assertEquals(lines("задача не найдена: 42", "строка 4: done 42",
+                "незакрытая кавычка", "строка 5: add \"незакрытая"), err.toString());
+        assertEquals(List.of("a", "b c", "", "de f"), BatchCommands.tokenize(" a \"b c\" \"\" d\"e f\" "));
+        assertNull(BatchCommands.tokenize("a \"b"));
+    }
+
+    @Test
+    void runOpensFileAndChecksOptions() throws IOException {
+        String file = directory.resolve("run.txt").toString();
+        StringWriter console = new StringWriter();
+        ConsoleOutput.setWriter(new PrintWriter(console));
+        PrintStream stderr = System.err;
+        System.setErr(new PrintStream(OutputStream.nullOutputStream()));
+        try {
+            assertEquals(BatchCommands.EXIT_OK, run("--file", file, "--durability", "flush", "add", "из", "командной строки"));
+            assertEquals(BatchCommands.EXIT_OK, run("--file", file, "list"));
+            assertEquals(BatchCommands.EXIT_USAGE, run("--file", file));
+            assertEquals(BatchCommands.EXIT_USAGE, run("--file", file, "--durability", "always", "list"));
+            assertEquals(BatchCommands.EXIT_USAGE, run("--file", file, "--verbose", "yes", "list"));
+            assertEquals(BatchCommands.EXIT_USAGE, run("--file", file, "--script", "-", "list"));
+            assertEquals(BatchCommands.EXIT_FAILED, run("--file", file, "--script", directory.resolve("missing.txt").toString()));
+        } finally {
+            System.setErr(stderr);
+        }
+        String printed = console.toString();
+        TaskManager reloaded = new TaskManager(file);
+        ToDoItem task = reloaded.getTaskById("1").orElseThrow();
+        reloaded.close();
+        assertEquals("из командной строки", task.getTaskDescription());
+        assertEquals(lines("1", task.toString()), printed);
+    }
+
+    private int execute(String... command) {
+        return commands.execute(List.of(command));
+    }
+
+    private static int run(String... args) {
+        return BatchCommands.run(args, "unused.txt", PersistenceMode.JOURNAL, DurabilityLevel.FSYNC);
+    }
+
+    private String task(String id) {
+        return taskManager.getTaskById(id).orElseThrow().toString();
+    }
+
+    private String takeOut() {
+        String text = out.toString();
+        out.getBuffer().setLength(0);
+        return text;
+    }
+
+    private static String lines(String... lines) {
+        StringBuilder text = new StringBuilder();
+        for (String line : lines) {
+            text.append(line).append(System.lineSeparator());
+        }
+        return text.toString();
+    }
+}
@@ -0,0 +1,138 @@
+package todo;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BinaryTaskCodecTest {
+    private static final StorageHeader HEADER = new StorageHeader(TaskOrder.PRIORITY, 42);
+
+    @TempDir
+    Path directory;
+    private PrintWriter consoleWriter;
+
+    @BeforeEach
+    void silenceConsole() {
+        consoleWriter = ConsoleOutput.writer();
+        ConsoleOutput.setWriter(new PrintWriter(Writer.nullWriter()));
+        ConsoleOutput.setErrorStream(new PrintStream(OutputStream.nullOutputStream()));
+    }
+
+    @AfterEach
+    void restoreConsole() {
+        ConsoleOutput.setWriter(consoleWriter);
+        ConsoleOutput.setErrorStream(System.err);
+    }
+
+    @Test
+    void roundTrip() throws IOException {
+        Path file = directory.resolve("tasks.bin");
+        try (OutputStream output = Files.newOutputStream(file)) {
+            BinaryTaskCodec.write(output, ToDoItemStorageTest.ITEMS, HEADER);
+        }
+        assertTrue(BinaryTaskCodec.isBinaryFile(file));
+
+        List<ToDoItem> loaded = new ArrayList<>();
+        assertEquals(HEADER, BinaryTaskCodec.read(file, loaded::add));
+        assertEquals(ToDoItemStorageTest.ITEMS.size(), loaded.size());
+        for (int i = 0; i < loaded.size(); i++) {
+            ToDoItemStorageTest.assertSameItem(ToDoItemStorageTest.ITEMS.get(i), loaded.get(i));
+        }
+    }
+
+    @Test
+    void textFilesAreNotBinary() throws IOException {
+        Path file = directory.resolve("tasks.txt");
+        Files.writeString(file, "# todo v2\n- 1 1 задача: \n");
+        assertFalse(BinaryTaskCodec.isBinaryFile(file));
+        Files.write(file, new byte[2]);
+        assertFalse(BinaryTaskCodec.isBinaryFile(file));
+    }
+
+    @Test
+    void taskManagerSwitchesFormatsWithoutLosingTasks() {
+        String file = directory.resolve("tasks.txt").toString();
+        TaskManager manager = new TaskManager(file);
+        for (ToDoItem item : ToDoItemStorageTest.ITEMS) {
+            manager.addNewTask(item.getTaskDescription(), item.getDeadline(), item.getPriorityLevel());
+        }
+        manager.sortByPriority();
+        List<String> expected = storedLines(manager);
+        manager.close();
+
+        for (StorageFormat format : List.of(StorageFormat.BINARY, StorageFormat.TEXT, StorageFormat.BINARY)) {
+            manager = new TaskManager(file);
+            assertTrue(manager.changeStorageFormat(format));
+            manager.close();
+
+            manager = new TaskManager(file);
+            assertEquals(format, manager.getStorageFormat());
+            assertEquals(TaskOrder.PRIORITY, manager.getOrder());
+            assertEquals(expected, storedLines(manager));
+            manager.close();
+        }
+        manager = new TaskManager(file);
+        assertEquals("6", manager.addNewTask("новая", null, TaskPriority.LOW));
+        manager.close();
+    }
+
+    @Test
+    void corruptFileIsNeverOverwritten() throws IOException {
+        Path file = directory.resolve("tasks.bin");
+        try (OutputStream output = Files.newOutputStream(file)) {
+            BinaryTaskCodec.write(output, ToDoItemStorageTest.ITEMS, HEADER);
+        }
+        byte[] whole = Files.readAllBytes(file);
+        byte[] truncated = Arrays.copyOf(whole, whole.length - 7);
+        Files.write(file, truncated);
+
+        for (PersistenceMode mode : PersistenceMode.values()) {
+            TaskManager manager = new TaskManager(file.toString(), mode);
+            assertTrue(manager.isReadOnly(), mode.name());
+            manager.addNewTask("потеряется", null, TaskPriority.LOW);
+            manager.saveTasks();
+            assertFalse(manager.changeStorageFormat(StorageFormat.TEXT), mode.name());
+            manager.close();
+            assertArrayEquals(truncated, Files.readAllBytes(file), mode.name());
+            assertFalse(Files.exists(directory.resolve("tasks.bin.journal")), mode.name());
+        }
+
+        // экспорт в другой файл спасает прочитанное
+        TaskManager manager = new TaskManager(file.toString());
+        assertTrue(manager.exportSnapshot(directory.resolve("copy.txt"), StorageFormat.TEXT));
+        manager.close();
+        assertTrue(Files.exists(directory.resolve("copy.txt")));
+    }
+
+    @Test
+    void commandsRefuseCorruptFile() throws IOException {
+        Path file = directory.resolve("tasks.bin");
+        byte[] header = {0x54, 0x44, 0x4F, 0x42, 3};
+        Files.write(file, header);
+        PrintStream stderr = System.err;
+        System.setErr(new PrintStream(OutputStream.nullOutputStream()));
+        try {
+            assertEquals(BatchCommands.EXIT_FAILED, BatchCommands.run(new String[] {"--file", file.toString(),
+                    "add", "задача"}, file.toString(), PersistenceMode.JOURNAL, DurabilityLevel.FLUSH));
+        } finally {
+            System.setErr(stderr);
+        }
+        assertArrayEquals(header, Files.readAllBytes(file));
+        assertFalse(Files.exists(directory.resolve("tasks.bin.journal")));
+    }
+
+    // задачи в порядке хранения: файл пишется в текущем порядке
+    private static List<String> storedLines(TaskManager manager) {
+        List<String> lines = new ArrayList<>();
+        manager.listTasks(null, null, 0, Integer.MAX_VALUE).forEachRemaining(item -> lines.add(item.toStorageFormat()));
+        return lines;
+    }
+}
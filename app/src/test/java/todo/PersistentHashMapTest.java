@@ -0,0 +1,90 @@
+package todo;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PersistentHashMapTest {
+    private static final int COUNT = 10_000;
+
+    @Test
+    void matchesHashMapOnRandomChanges() {
+        Random random = new Random(42);
+        PersistentHashMap<String, Integer> map = PersistentHashMap.empty();
+        Map<String, Integer> expected = new HashMap<>();
+        for (int i = 0; i < COUNT * 3; i++) {
+            String key = String.valueOf(random.nextInt(COUNT));
+            if (random.nextInt(3) == 0) {
+                map = map.without(key);
+                expected.remove(key);
+            } else {
+                map = map.with(key, i);
+                expected.put(key, i);
+            }
+        }
+        assertEquals(expected, toMap(map));
+        for (int i = 0; i < COUNT; i++) {
+            String key = String.valueOf(i);
+            assertEquals(expected.get(key), map.get(key), key);
+        }
+    }
+
+    @Test
+    void oldVersionsStayUnchanged() {
+        PersistentHashMap<String, Integer> empty = PersistentHashMap.empty();
+        PersistentHashMap<String, Integer> one = empty.with("1", 1);
+        PersistentHashMap<String, Integer> two = one.with("2", 2);
+        PersistentHashMap<String, Integer> replaced = two.with("1", 10);
+        PersistentHashMap<String, Integer> removed = replaced.without("2");
+
+        assertEquals(Map.of(), toMap(empty));
+        assertEquals(Map.of("1", 1), toMap(one));
+        assertEquals(Map.of("1", 1, "2", 2), toMap(two));
+        assertEquals(Map.of("1", 10, "2", 2), toMap(replaced));
+        assertEquals(Map.of("1", 10), toMap(removed));
+        assertTrue(removed.without("1").isEmpty());
+        // без изменений возвращается та же версия
+        assertSame(two, two.without("3"));
+        assertSame(two, two.with("2", two.get("2")));
+    }
+
+    @Test
+    void keepsKeysWithEqualHashes() {
+        // "Aa" и "BB" - классическая пара строк с одинаковым hashCode
+        List<String> keys = new ArrayList<>();
+        for (String first : List.of("Aa", "BB")) {
+            for (String second : List.of("Aa", "BB")) {
+                for (String third : List.of("Aa", "BB")) {
+                    keys.add(first + second + third);
+                }
+            }
+        }
+        PersistentHashMap<String, String> map = PersistentHashMap.empty();
+        for (String key : keys) {
+            map = map.with(key, key.toLowerCase());
+        }
+        map = map.with("другой", "ключ");
+        assertEquals(keys.size() + 1, map.size());
+        for (String key : keys) {
+            assertEquals(key.toLowerCase(), map.get(key));
+        }
+        for (int i = 0; i < keys.size(); i++) {
+            map = map.without(keys.get(i));
+            assertNull(map.get(keys.get(i)));
+            assertEquals(keys.size() - i, map.size());
+            for (String key : keys.subList(i + 1, keys.size())) {
+                assertEquals(key.toLowerCase(), map.get(key));
+            }
+        }
+        assertEquals(Map.of("другой", "ключ"), toMap(map));
+    }
+
+    private static <K, V> Map<K, V> toMap(PersistentHashMap<K, V> map) {
+        Map<K, V> result = new HashMap<>();
+        map.forEach((key, value) -> assertNull(result.put(key, value), String.valueOf(key)));
+        assertEquals(result.size(), map.size());
+        return result;
+    }
+}
@@ -0,0 +1,114 @@
+package todo;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PersistentSortedSetTest {
+    private static final int COUNT = 10_000;
+
+    @Test
+    void staysBalancedOnSortedInsertAndRemove() {
+        PersistentSortedSet<Integer> set = PersistentSortedSet.empty(Comparator.naturalOrder());
+        for (int i = 0; i < COUNT; i++) {
+            set = set.with(i);
+        }
+        assertEquals(COUNT, set.size());
+        assertBalanced(set);
+
+        // удаление каждого второго элемента и всего начала дерева
+        for (int i = 0; i < COUNT; i += 2) {
+            set = set.without(i);
+        }
+        for (int i = 1; i < COUNT / 2; i += 2) {
+            set = set.without(i);
+        }
+        assertEquals(COUNT / 4, set.size());
+        assertBalanced(set);
+        assertEquals(IntStream.range(COUNT / 2, COUNT).filter(i -> i % 2 == 1).boxed().collect(Collectors.toList()),
+                toList(set.iterator()));
+    }
+
+    @Test
+    void staysBalancedOnRandomChanges() {
+        Random random = new Random(42);
+        PersistentSortedSet<Integer> set = PersistentSortedSet.empty(Comparator.naturalOrder());
+        TreeSet<Integer> expected = new TreeSet<>();
+        for (int i = 0; i < COUNT * 3; i++) {
+            int value = random.nextInt(COUNT);
+            if (random.nextInt(3) == 0) {
+                set = set.without(value);
+                expected.remove(value);
+            } else {
+                set = set.with(value);
+                expected.add(value);
+            }
+        }
+        assertEquals(expected.size(), set.size());
+        assertBalanced(set);
+        assertEquals(new ArrayList<>(expected), toList(set.iterator()));
+    }
+
+    @Test
+    void fromSortedBuildsBalancedTree() {
+        List<Integer> sorted = IntStream.range(0, COUNT).boxed().collect(Collectors.toList());
+        PersistentSortedSet<Integer> set = PersistentSortedSet.fromSorted(Comparator.naturalOrder(), sorted);
+        assertEquals(COUNT, set.size());
+        assertEquals(32 - Integer.numberOfLeadingZeros(COUNT), set.height());
+        assertEquals(sorted, toList(set.iterator()));
+    }
+
+    @Test
+    void iteratorStartsAtRank() {
+        List<Integer> values = new ArrayList<>();
+        PersistentSortedSet<Integer> set = PersistentSortedSet.empty(Comparator.naturalOrder());
+        for (int i = 0; i < 1000; i++) {
+            set = set.with(i * 3);
+            values.add(i * 3);
+        }
+        for (int from = 0; from <= values.size(); from++) {
+            assertEquals(values.subList(from, values.size()), toList(set.iterator(from)), "fromIndex " + from);
+        }
+        assertFalse(set.iterator(values.size() + 5).hasNext());
+        Iterator<Integer> end = set.iterator(values.size());
+        assertThrows(NoSuchElementException.class, end::next);
+    }
+
+    @Test
+    void oldVersionsDoNotChange() {
+        PersistentSortedSet<Integer> empty = PersistentSortedSet.empty(Comparator.naturalOrder());
+        PersistentSortedSet<Integer> first = empty.with(2).with(1).with(3);
+        PersistentSortedSet<Integer> second = first.without(2).with(4);
+
+        assertTrue(empty.isEmpty());
+        assertEquals(List.of(1, 2, 3), toList(first.iterator()));
+        assertEquals(List.of(1, 3, 4), toList(second.iterator()));
+        assertSame(second, second.without(10));
+    }
+
+    @Test
+    void withReplacesEqualElementAndFindUsesProbe() {
+        Comparator<String> byLength = Comparator.comparingInt(String::length);
+        PersistentSortedSet<String> set = PersistentSortedSet.empty(byLength);
+        set = set.with("a").with("bb").with("cc");
+
+        assertEquals(2, set.size());
+        assertEquals("cc", set.find(value -> Integer.compare(2, value.length())));
+        assertNull(set.find(value -> Integer.compare(5, value.length())));
+    }
+
+    private static void assertBalanced(PersistentSortedSet<?> set) {
+        double limit = 1.45 * Math.log(set.size() + 2) / Math.log(2);
+        assertTrue(set.height() <= limit, "высота " + set.height() + " для " + set.size() + " элементов");
+    }
+
+    private static <T> List<T> toList(Iterator<T> iterator) {
+        List<T> list = new ArrayList<>();
+        iterator.forEachRemaining(list::add);
+        return list;
+    }
+}
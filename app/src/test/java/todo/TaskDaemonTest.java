@@ -0,0 +1,199 @@
+package todo;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.*;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TaskDaemonTest {
+    @TempDir
+    Path directory;
+    private PrintWriter consoleWriter;
+    private Path socketPath;
+    private TaskManager taskManager;
+    private Thread daemon;
+    private volatile int daemonExitCode = Integer.MIN_VALUE;
+
+    @BeforeEach
+    void startDaemon() throws InterruptedException {
+        consoleWriter = ConsoleOutput.writer();
+        ConsoleOutput.setWriter(new PrintWriter(Writer.nullWriter()));
+        ConsoleOutput.setErrorStream(new PrintStream(OutputStream.nullOutputStream()));
+        socketPath = directory.resolve("tasks.txt.sock");
+        taskManager = new TaskManager(directory.resolve("tasks.txt").toString(), PersistenceMode.JOURNAL);
+        PrintWriter quiet = new PrintWriter(Writer.nullWriter());
+        daemon = new Thread(() -> daemonExitCode = TaskDaemon.run(taskManager, socketPath, quiet, quiet), "test-daemon");
+        daemon.setDaemon(true);
+        daemon.start();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!Files.exists(socketPath)) {
+            assertTrue(System.nanoTime() < deadline, "демон не запустился");
+            Thread.sleep(10);
+        }
+    }
+
+    // accept прерывается, как при закрытии сокета обработчиком завершения
+    @AfterEach
+    void stopDaemon() throws InterruptedException {
+        daemon.interrupt();
+        daemon.join(TimeUnit.SECONDS.toMillis(10));
+        assertFalse(daemon.isAlive());
+        taskManager.close();
+        ConsoleOutput.setWriter(consoleWriter);
+        ConsoleOutput.setErrorStream(System.err);
+        assertEquals(BatchCommands.EXIT_OK, daemonExitCode);
+        assertFalse(Files.exists(socketPath));
+    }
+
+    @Test
+    void commandsRoundTrip() {
+        Reply first = forward(false, "add", "купить: молоко", "--priority", "1");
+        assertEquals(BatchCommands.EXIT_OK, first.exitCode);
+        assertEquals(lines("1"), first.out);
+        assertEquals("купить: молоко", taskManager.getTaskById("1").orElseThrow().getTaskDescription());
+
+        Reply script = forward(true, "add \"позвонить\"", "# комментарий", "done 1 7", "list --open");
+        assertEquals(BatchCommands.EXIT_FAILED, script.exitCode);
+        assertEquals(lines("2", taskManager.getTaskById("2").orElseThrow().toString()), script.out);
+        assertEquals(lines("задача не найдена: 7", "строка 3: done 1 7"), script.err);
+
+        // длинный вывод приходит несколькими кадрами без потерь, граница кадра
+        // приходится то между суррогатными парами, то внутри пары
+        for (String prefix : List.of("", "x")) {
+            Reply added = forward(false, "add", prefix + "😀".repeat(40_000) + "конец" + prefix.length());
+            assertEquals(BatchCommands.EXIT_OK, added.exitCode);
+            String id = added.out.strip();
+            Reply search = forward(false, "search", "конец" + prefix.length());
+            assertEquals(lines(taskManager.getTaskById(id).orElseThrow().toString()), search.out);
+        }
+
+        assertEquals(BatchCommands.EXIT_USAGE, forward(false).exitCode);
+        assertEquals(BatchCommands.EXIT_USAGE, forward(false, "serve").exitCode);
+        assertEquals(TaskDaemon.NOT_RUNNING, TaskDaemon.forward(directory.resolve("other.sock"), false,
+                List.of("list"), new PrintWriter(Writer.nullWriter()), new PrintWriter(Writer.nullWriter())));
+    }
+
+    @Test
+    void secondDaemonIsRefused() {
+        StringWriter err = new StringWriter();
+        assertEquals(BatchCommands.EXIT_FAILED, TaskDaemon.run(taskManager, socketPath,
+                new PrintWriter(Writer.nullWriter()), new PrintWriter(err)));
+        assertTrue(err.toString().startsWith("демон уже запущен"), err.toString());
+        assertTrue(Files.exists(socketPath));
+    }
+
+    @Test
+    void oversizedRequestsAreRejected() throws IOException {
+        // число строк и длина строки из запроса не становятся размерами массивов
+        for (int count : new int[] {Integer.MAX_VALUE, TaskDaemon.MAX_LINES + 1, -1}) {
+            Reply reply = sendRaw(output -> {
+                writeString(output, directory.toString());
+                output.writeBoolean(false);
+                output.writeInt(count);
+            });
+            assertEquals(BatchCommands.EXIT_USAGE, reply.exitCode, String.valueOf(count));
+            assertTrue(reply.err.startsWith("неверный запрос"), reply.err);
+        }
+        Reply reply = sendRaw(output -> output.writeInt(Integer.MAX_VALUE));
+        assertEquals(BatchCommands.EXIT_USAGE, reply.exitCode);
+        reply = sendRaw(output -> {
+            writeString(output, directory.toString());
+            output.writeBoolean(true);
+            output.writeInt(1);
+            output.writeInt(TaskDaemon.MAX_STRING_BYTES + 1);
+        });
+        assertEquals(BatchCommands.EXIT_USAGE, reply.exitCode);
+
+        // клиент проверяет те же ограничения до отправки
+        assertEquals(BatchCommands.EXIT_USAGE,
+                forward(true, Collections.nCopies(TaskDaemon.MAX_LINES + 1, "list").toArray(new String[0])).exitCode);
+        assertEquals(BatchCommands.EXIT_USAGE, forward(false, "add", "x".repeat(TaskDaemon.MAX_STRING_BYTES + 1)).exitCode);
+        assertFalse(taskManager.listTasks(null, null, 0, 1).hasNext());
+        assertEquals(BatchCommands.EXIT_OK, forward(false, "list").exitCode);
+    }
+
+    @Test
+    void fileLockIsExclusive() {
+        String file = directory.resolve("locked.txt").toString();
+        StringWriter err = new StringWriter();
+        TaskFileLock lock = TaskFileLock.acquire(file, new PrintWriter(err, true));
+        assertNotNull(lock);
+        assertNull(TaskFileLock.acquire(file, new PrintWriter(err, true)));
+        assertTrue(err.toString().contains("уже открыт другим процессом"), err.toString());
+
+        PrintStream stderr = System.err;
+        System.setErr(new PrintStream(OutputStream.nullOutputStream()));
+        try {
+            assertEquals(BatchCommands.EXIT_FAILED, BatchCommands.run(new String[] {"--file", file, "add", "задача"},
+                    file, PersistenceMode.JOURNAL, DurabilityLevel.FLUSH));
+        } finally {
+            System.setErr(stderr);
+        }
+        assertFalse(Files.exists(Path.of(file)));
+
+        lock.close();
+        TaskFileLock again = TaskFileLock.acquire(file, new PrintWriter(err, true));
+        assertNotNull(again);
+        again.close();
+    }
+
+    private record Reply(int exitCode, String out, String err) {}
+
+    private interface RequestWriter {
+        void write(DataOutputStream output) throws IOException;
+    }
+
+    private Reply forward(boolean script, String... lines) {
+        StringWriter out = new StringWriter();
+        StringWriter err = new StringWriter();
+        int exitCode = TaskDaemon.forward(socketPath, script, List.of(lines), new PrintWriter(out), new PrintWriter(err));
+        return new Reply(exitCode, out.toString(), err.toString());
+    }
+
+    // запрос в обход forward; ответ читается по формату кадров демона
+    private Reply sendRaw(RequestWriter request) throws IOException {
+        try (SocketChannel channel = SocketChannel.open(UnixDomainSocketAddress.of(socketPath))) {
+            DataOutputStream output = new DataOutputStream(Channels.newOutputStream(channel));
+            request.write(output);
+            output.flush();
+            DataInputStream input = new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel)));
+            StringBuilder out = new StringBuilder();
+            StringBuilder err = new StringBuilder();
+            while (true) {
+                byte type = input.readByte();
+                if (type == 3) {
+                    return new Reply(input.readInt(), out.toString(), err.toString());
+                }
+                byte[] text = new byte[input.readInt()];
+                input.readFully(text);
+                (type == 2 ? err : out).append(new String(text, StandardCharsets.UTF_8));
+            }
+        }
+    }
+
+    private static void writeString(DataOutputStream output, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        output.writeInt(bytes.length);
+        output.write(bytes);
+    }
+
+    private static String lines(String... lines) {
+        StringBuilder text = new StringBuilder();
+        for (String line : lines) {
+            text.append(line).append(System.lineSeparator());
+        }
+        return text.toString();
+    }
+}
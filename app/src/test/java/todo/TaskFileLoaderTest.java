@@ -0,0 +1,111 @@
+package todo;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TaskFileLoaderTest {
+    // файл больше двух частей по 4 МБ; кириллица в описаниях занимает по два байта
+    private static final int LARGE_FILE_CHARS = 6_000_000;
+    private static final long TWO_CHUNKS_BYTES = 8 * 1024 * 1024;
+
+    @TempDir
+    Path directory;
+    private PrintWriter consoleWriter;
+    private ByteArrayOutputStream errors;
+
+    @BeforeEach
+    void captureConsole() {
+        consoleWriter = ConsoleOutput.writer();
+        ConsoleOutput.setWriter(new PrintWriter(Writer.nullWriter()));
+        errors = new ByteArrayOutputStream();
+        ConsoleOutput.setErrorStream(new PrintStream(errors, true, StandardCharsets.UTF_8));
+    }
+
+    @AfterEach
+    void restoreConsole() {
+        ConsoleOutput.setWriter(consoleWriter);
+        ConsoleOutput.setErrorStream(System.err);
+    }
+
+    @Test
+    void largeFileKeepsLineOrderAndNumbers() throws IOException {
+        for (String separator : List.of("\n", "\r\n")) {
+            Random random = new Random(3);
+            StringBuilder text = new StringBuilder(ToDoItem.storageHeader(new StorageHeader(TaskOrder.DEADLINE, 7)))
+                    .append(separator);
+            List<String> expected = new ArrayList<>();
+            List<Integer> expectedSkipped = new ArrayList<>();
+            int lineNumber = 1;
+            long id = 1;
+            while (text.length() < LARGE_FILE_CHARS) {
+                lineNumber++;
+                if (random.nextInt(5000) == 0) {
+                    text.append("неверная строка ").append(lineNumber).append(separator);
+                    expectedSkipped.add(lineNumber);
+                    continue;
+                }
+                // описания разной длины с многобайтовыми символами сдвигают границы частей
+                String line = new ToDoItem(String.valueOf(id++), "задача " + "ж".repeat(random.nextInt(60)) + lineNumber,
+                        random.nextBoolean() ? LocalDate.of(2026, 1, 1).plusDays(random.nextInt(365)) : null,
+                        TaskPriority.values()[random.nextInt(3)], random.nextBoolean()).toStorageFormat();
+                text.append(line).append(separator);
+                expected.add(line);
+            }
+            Path file = directory.resolve("tasks.txt");
+            Files.writeString(file, text, StandardCharsets.UTF_8);
+            assertTrue(Files.size(file) > TWO_CHUNKS_BYTES, "файл меньше трех частей");
+
+            errors.reset();
+            List<String> loaded = new ArrayList<>();
+            List<Integer> skipped = new ArrayList<>();
+            StorageHeader header = TaskFileLoader.load(file, item -> loaded.add(item.toStorageFormat()), skipped::add);
+            assertEquals(new StorageHeader(TaskOrder.DEADLINE, 7), header);
+            assertEquals(expected, loaded);
+            assertEquals(expectedSkipped, skipped);
+            assertFalse(expectedSkipped.isEmpty());
+            for (int number : expectedSkipped) {
+                assertTrue(errors.toString(StandardCharsets.UTF_8).contains("пропущена строка " + number + "\n"),
+                        String.valueOf(number));
+            }
+
+            // построчное чтение дает те же задачи и номера строк
+            List<String> streamed = new ArrayList<>();
+            List<Integer> streamedSkipped = new ArrayList<>();
+            assertEquals(expectedSkipped.size(),
+                    TaskFileLoader.stream(file, item -> streamed.add(item.toStorageFormat()), streamedSkipped, 1000));
+            assertEquals(expected, streamed);
+            assertEquals(expectedSkipped, streamedSkipped);
+        }
+    }
+
+    @Test
+    void lineNumbersCountEveryLineBreak() throws IOException {
+        Path file = directory.resolve("tasks.txt");
+        Files.writeString(file, "# todo v2\r\n- 1 1 первая: \rплохая\r\n\n+ 2 2 вторая: 2026-01-31\nеще плохая");
+        List<String> loaded = new ArrayList<>();
+        List<Integer> skipped = new ArrayList<>();
+        TaskFileLoader.load(file, item -> loaded.add(item.getTaskDescription()), skipped::add);
+        assertEquals(List.of("первая", "вторая"), loaded);
+        assertEquals(List.of(3, 4, 6), skipped);
+
+        // файл без заголовка: нумерация с первой строки
+        Files.writeString(file, "плохая\n- 1 первая: \n");
+        skipped.clear();
+        assertEquals(StorageHeader.DEFAULT, TaskFileLoader.load(file, item -> { }, skipped::add));
+        assertEquals(List.of(1), skipped);
+
+        Files.writeString(file, "");
+        assertEquals(StorageHeader.DEFAULT, TaskFileLoader.load(file, item -> fail(), line -> fail()));
+    }
+}
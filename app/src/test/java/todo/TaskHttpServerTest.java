@@ -0,0 +1,186 @@
+package todo;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.*;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TaskHttpServerTest {
+    private static final Pattern DESCRIPTION = Pattern.compile("\"description\":\"([^\"]*)\"");
+
+    @TempDir
+    static Path directory;
+    private static PrintWriter consoleWriter;
+    private static TaskManager taskManager;
+    private static TaskHttpServer server;
+    private static HttpClient client;
+    private static String baseUrl;
+
+    @BeforeAll
+    static void startServer() throws IOException {
+        consoleWriter = ConsoleOutput.writer();
+        ConsoleOutput.setWriter(new PrintWriter(Writer.nullWriter()));
+        taskManager = new TaskManager(directory.resolve("tasks.txt").toString());
+        server = TaskHttpServer.start(taskManager, new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 4);
+        client = HttpClient.newHttpClient();
+        baseUrl = "http://localhost:" + server.address().getPort() + "/tasks";
+    }
+
+    @AfterAll
+    static void stopServer() {
+        server.stop();
+        taskManager.close();
+        ConsoleOutput.setWriter(consoleWriter);
+    }
+
+    @Test
+    void createsAndUpdatesTask() throws Exception {
+        HttpResponse<String> created = send("POST", "", "{\"description\": \"купить: молоко\", "
+                + "\"deadline\": \"2026-12-01\", \"priority\": 1}");
+        assertEquals(201, created.statusCode());
+        String location = created.headers().firstValue("Location").orElseThrow();
+        String id = location.substring(location.lastIndexOf('/') + 1);
+        assertTrue(created.body().contains("\"description\":\"купить: молоко\""), created.body());
+
+        HttpResponse<String> updated = send("PATCH", "/" + id, "{\"completed\": true, \"priority\": \"3\"}");
+        assertEquals(200, updated.statusCode());
+        assertTrue(updated.body().contains("\"completed\":true"), updated.body());
+        assertTrue(updated.body().contains("\"priority\":3"), updated.body());
+        assertTrue(updated.body().contains("\"deadline\":\"2026-12-01\""), updated.body());
+
+        assertEquals(200, send("GET", "/" + id, null).statusCode());
+        assertEquals(204, send("DELETE", "/" + id, null).statusCode());
+        assertEquals(404, send("GET", "/" + id, null).statusCode());
+    }
+
+    @Test
+    void rejectsInvalidJson() throws Exception {
+        assertBadRequest("POST", "", "");
+        assertBadRequest("POST", "", "[]");
+        assertBadRequest("POST", "", "{\"description\": \"без кавычки}");
+        assertBadRequest("POST", "", "{\"description\": \"задача\"} лишнее");
+        assertBadRequest("POST", "", "{\"description\": \"задача\",}");
+    }
+
+    @Test
+    void rejectsInvalidFields() throws Exception {
+        assertBadRequest("POST", "", "{}");
+        assertBadRequest("POST", "", "{\"description\": \"   \"}");
+        assertBadRequest("POST", "", "{\"description\": true}");
+        assertBadRequest("POST", "", "{\"description\": \"две\\nстроки\"}");
+        assertBadRequest("POST", "", "{\"description\": \"табуляция\\t\"}");
+        assertBadRequest("POST", "", "{\"description\": \"задача\", \"deadline\": \"01.12.2026\"}");
+        assertBadRequest("POST", "", "{\"description\": \"задача\", \"priority\": 5}");
+        assertBadRequest("POST", "", "{\"description\": \"задача\", \"completed\": true}");
+        assertBadRequest("POST", "", "{\"description\": \"задача\", \"owner\": \"я\"}");
+
+        String id = taskManager.addNewTask("для изменения", null, TaskPriority.LOW);
+        assertBadRequest("PATCH", "/" + id, "{\"completed\": \"да\"}");
+        assertBadRequest("PATCH", "/" + id, "{\"description\": \"\"}");
+        assertBadRequest("PATCH", "/" + id, "{\"description\": \"перевод\\rстроки\"}");
+        assertEquals("для изменения", taskManager.getTaskById(id).orElseThrow().getTaskDescription());
+    }
+
+    @Test
+    void rejectsInvalidQuery() throws Exception {
+        assertEquals(400, send("GET", "?priority=7", null).statusCode());
+        assertEquals(400, send("GET", "?completed=maybe", null).statusCode());
+        assertEquals(400, send("GET", "?order=random", null).statusCode());
+        assertEquals(400, send("GET", "?limit=-1", null).statusCode());
+        assertEquals(200, send("GET", "?priority=1&completed=false&limit=10", null).statusCode());
+        // HttpClient не отправит URI с неверной %-последовательностью
+        assertEquals("HTTP/1.1 400 Bad Request", rawStatusLine("GET /tasks?q=%zz HTTP/1.1"));
+        assertEquals("HTTP/1.1 400 Bad Request", rawStatusLine("GET /tasks?q%=1 HTTP/1.1"));
+        assertNull(TaskHttpServer.parseQuery("q=%zz"));
+        assertNull(TaskHttpServer.parseQuery("limit=1&q=%"));
+        assertEquals(Map.of("q", "a b:", "limit", "1"), TaskHttpServer.parseQuery("q=a+b%3A&limit=1&q=c"));
+    }
+
+    @Test
+    void ordersFilteredTasks() throws Exception {
+        taskManager.addNewTask("порядок поздно", LocalDate.of(2030, 1, 1), TaskPriority.HIGH);
+        String done = taskManager.addNewTask("порядок рано сделано", LocalDate.of(2020, 1, 1), TaskPriority.HIGH);
+        taskManager.addNewTask("порядок рано", LocalDate.of(2025, 1, 1), TaskPriority.LOW);
+        taskManager.addNewTask("порядок без срока", null, TaskPriority.HIGH);
+        taskManager.updateTask(taskManager.getTaskById(done).orElseThrow(), null, null, null, true);
+
+        assertEquals(List.of("порядок рано", "порядок поздно", "порядок без срока", "порядок рано сделано"),
+                descriptions("?q=" + encode("ПОРЯДОК") + "&order=deadline"));
+        assertEquals(List.of("порядок поздно", "порядок без срока", "порядок рано"),
+                descriptions("?q=" + encode("порядок") + "&completed=false&order=priority"));
+        assertEquals(List.of("порядок без срока", "порядок рано сделано"),
+                descriptions("?q=" + encode("порядок") + "&priority=1&order=deadline&offset=1&limit=2"));
+        assertEquals(List.of("порядок поздно", "порядок рано", "порядок без срока"),
+                descriptions("?q=" + encode("порядок") + "&order=insertion&completed=false"));
+    }
+
+    @Test
+    void rejectsUnsupportedMethodsAndPaths() throws Exception {
+        String id = taskManager.addNewTask("для PUT", null, TaskPriority.LOW);
+        HttpResponse<String> put = send("PUT", "/" + id, "{\"description\": \"замена\"}");
+        assertEquals(405, put.statusCode());
+        assertEquals("GET, PATCH, DELETE", put.headers().firstValue("Allow").orElseThrow());
+        assertEquals(405, send("DELETE", "", null).statusCode());
+        assertEquals(404, send("GET", "/" + id + "/extra", null).statusCode());
+        assertEquals(404, send("PATCH", "/999999", "{\"completed\": true}").statusCode());
+    }
+
+    // описания задач из ответа на GET /tasks в порядке выдачи
+    private static List<String> descriptions(String query) throws Exception {
+        HttpResponse<String> response = send("GET", query, null);
+        assertEquals(200, response.statusCode(), response.body());
+        List<String> descriptions = new ArrayList<>();
+        Matcher matcher = DESCRIPTION.matcher(response.body());
+        while (matcher.find()) {
+            descriptions.add(matcher.group(1));
+        }
+        return descriptions;
+    }
+
+    private static String rawStatusLine(String requestLine) throws IOException {
+        try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), server.address().getPort())) {
+            OutputStream output = socket.getOutputStream();
+            output.write((requestLine + "\r\nHost: localhost\r\nConnection: close\r\n\r\n")
+                    .getBytes(StandardCharsets.US_ASCII));
+            output.flush();
+            return new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII)).readLine();
+        }
+    }
+
+    private static String encode(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8);
+    }
+
+    private static void assertBadRequest(String method, String path, String body) throws Exception {
+        HttpResponse<String> response = send(method, path, body);
+        assertEquals(400, response.statusCode(), body);
+        assertTrue(response.body().startsWith("{\"error\":"), response.body());
+    }
+
+    private static HttpResponse<String> send(String method, String path, String body) throws Exception {
+        HttpRequest.BodyPublisher publisher = body != null
+                ? HttpRequest.BodyPublishers.ofString(body) : HttpRequest.BodyPublishers.noBody();
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + path)).method(method, publisher).build();
+        return client.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+}
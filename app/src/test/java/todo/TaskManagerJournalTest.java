@@ -0,0 +1,142 @@
+package todo;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// сбой во время уплотнения журнала: журнал уже отложен в .journal.old, а основной файл
+// либо еще старый, либо уже записан, но отложенный журнал не удален
+class TaskManagerJournalTest {
+    @TempDir
+    Path directory;
+    private Path file;
+    private Path journal;
+    private Path compactingJournal;
+    private PrintWriter consoleWriter;
+
+    // файл до изменений, журнал изменений, файл после их уплотнения и ожидаемые задачи
+    private byte[] oldSnapshot;
+    private byte[] changes;
+    private byte[] newSnapshot;
+    private List<String> expected;
+
+    @BeforeEach
+    void prepare() throws IOException {
+        consoleWriter = ConsoleOutput.writer();
+        ConsoleOutput.setWriter(new PrintWriter(Writer.nullWriter()));
+        // повторно примененные записи журнала сообщают, что пропущены
+        ConsoleOutput.setErrorStream(new PrintStream(OutputStream.nullOutputStream()));
+        file = directory.resolve("tasks.txt");
+        journal = directory.resolve("tasks.txt.journal");
+        compactingJournal = directory.resolve("tasks.txt.journal.old");
+
+        TaskManager manager = open();
+        manager.addNewTask("первая", LocalDate.of(2026, 1, 1), TaskPriority.HIGH);
+        manager.addNewTask("вторая", null, TaskPriority.MEDIUM);
+        manager.addNewTask("третья: с двоеточием", LocalDate.of(2026, 3, 1), TaskPriority.LOW);
+        manager.close();
+        oldSnapshot = Files.readAllBytes(file);
+        assertFalse(Files.exists(journal));
+
+        manager = open();
+        manager.addNewTask("четвертая", null, TaskPriority.LOW);
+        manager.updateTask(manager.getTaskById("2").orElseThrow(), null, null, null, true);
+        manager.updateTask(manager.getTaskById("3").orElseThrow(), "третья изменена", null, TaskPriority.HIGH, null);
+        assertTrue(manager.removeTask("1"));
+        expected = storageLines(manager);
+        changes = Files.readAllBytes(journal);
+        manager.close();
+        newSnapshot = Files.readAllBytes(file);
+        assertFalse(Files.exists(journal));
+        assertFalse(Files.exists(compactingJournal));
+    }
+
+    @AfterEach
+    void restoreConsole() {
+        ConsoleOutput.setWriter(consoleWriter);
+        ConsoleOutput.setErrorStream(System.err);
+    }
+
+    @Test
+    void journalIsReplayedOnStart() throws IOException {
+        Files.write(file, oldSnapshot);
+        Files.write(journal, changes);
+        assertRecovered(expected, "5");
+    }
+
+    @Test
+    void crashBeforeSnapshotWasWritten() throws IOException {
+        Files.write(file, oldSnapshot);
+        Files.write(compactingJournal, changes);
+        assertRecovered(expected, "5");
+    }
+
+    @Test
+    void crashAfterSnapshotWasWritten() throws IOException {
+        // все записи отложенного журнала уже есть в файле, повторно они ничего не меняют
+        Files.write(file, newSnapshot);
+        Files.write(compactingJournal, changes);
+        assertRecovered(expected, "5");
+    }
+
+    @Test
+    void journalIsAppliedTwiceWithoutHarm() throws IOException {
+        Files.write(file, newSnapshot);
+        Files.write(journal, changes);
+        assertRecovered(expected, "5");
+    }
+
+    @Test
+    void newJournalIsAppliedAfterCompactingJournal() throws IOException {
+        TaskManager manager = open();
+        manager.addNewTask("пятая", null, TaskPriority.MEDIUM);
+        assertTrue(manager.removeTask("4"));
+        manager.updateTask(manager.getTaskById("2").orElseThrow(), null, null, null, false);
+        List<String> later = storageLines(manager);
+        byte[] laterChanges = Files.readAllBytes(journal);
+        manager.close();
+
+        for (byte[] snapshot : List.of(oldSnapshot, newSnapshot)) {
+            Files.write(file, snapshot);
+            Files.write(compactingJournal, changes);
+            Files.write(journal, laterChanges);
+            assertRecovered(later, "6");
+        }
+    }
+
+    // после загрузки задачи совпадают с ожидаемыми, ID не выдаются повторно,
+    // а при закрытии журналы уплотняются в основной файл
+    private void assertRecovered(List<String> tasks, String nextId) {
+        TaskManager manager = open();
+        assertEquals(tasks, storageLines(manager));
+        manager.close();
+        assertFalse(Files.exists(journal));
+        assertFalse(Files.exists(compactingJournal));
+
+        manager = open();
+        assertEquals(tasks, storageLines(manager));
+        assertEquals(nextId, manager.addNewTask("следующая", null, TaskPriority.LOW));
+        assertTrue(manager.removeTask(nextId));
+        manager.close();
+    }
+
+    private TaskManager open() {
+        return new TaskManager(file.toString(), PersistenceMode.JOURNAL);
+    }
+
+    private static List<String> storageLines(TaskManager manager) {
+        List<String> lines = new ArrayList<>();
+        manager.listTasks(TaskOrder.INSERTION, null, 0, Integer.MAX_VALUE)
+                .forEachRemaining(item -> lines.add(item.toStorageFormat()));
+        return lines;
+    }
+}
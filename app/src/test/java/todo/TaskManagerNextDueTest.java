@@ -0,0 +1,79 @@
+package todo;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.*;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TaskManagerNextDueTest {
+    @TempDir
+    Path directory;
+    private PrintWriter consoleWriter;
+
+    @BeforeEach
+    void silenceConsole() {
+        consoleWriter = ConsoleOutput.writer();
+        ConsoleOutput.setWriter(new PrintWriter(Writer.nullWriter()));
+        ConsoleOutput.setErrorStream(new PrintStream(OutputStream.nullOutputStream()));
+    }
+
+    @AfterEach
+    void restoreConsole() {
+        ConsoleOutput.setWriter(consoleWriter);
+        ConsoleOutput.setErrorStream(System.err);
+    }
+
+    @Test
+    void emptyManagerHasNothingDue() {
+        TaskManager manager = new TaskManager(directory.resolve("tasks.txt").toString());
+        assertEquals(List.of(), manager.nextDue(Integer.MAX_VALUE));
+        assertEquals(List.of(), manager.nextDue(0));
+        assertEquals(List.of(), manager.nextDue(-1));
+        manager.close();
+    }
+
+    @Test
+    void nextDueMatchesFullSortInEveryOrder() {
+        TaskManager manager = new TaskManager(directory.resolve("tasks.txt").toString());
+        Random random = new Random(17);
+        for (int i = 0; i < 300; i++) {
+            // много совпадающих сроков и задач без срока
+            LocalDate deadline = random.nextInt(5) == 0 ? null : LocalDate.of(2026, 1, 1).plusDays(random.nextInt(40));
+            String id = manager.addNewTask("задача " + i, deadline, TaskPriority.values()[random.nextInt(3)]);
+            if (random.nextInt(4) == 0) {
+                manager.updateTask(manager.getTaskById(id).orElseThrow(), null, null, null, true);
+            }
+        }
+        List<ToDoItem> sorted = new ArrayList<>(manager.searchByCompletionStatus(false));
+        sorted.sort(Comparator.comparing(ToDoItem::getDeadline, Comparator.nullsLast(Comparator.naturalOrder()))
+                .thenComparing(ToDoItem::getPriorityLevel)
+                .thenComparing(item -> Long.parseLong(item.getTaskId())));
+        List<String> expected = ids(sorted);
+
+        Runnable[] orders = {manager::sortByInsertionOrder, manager::sortByPriority, manager::sortByDeadline};
+        for (Runnable order : orders) {
+            order.run();
+            for (int k : new int[] {1, 2, 10, expected.size() - 1, expected.size(), expected.size() + 1, 1000,
+                    Integer.MAX_VALUE}) {
+                assertEquals(expected.subList(0, Math.min(k, expected.size())), ids(manager.nextDue(k)),
+                        manager.getOrder() + " k=" + k);
+            }
+        }
+        manager.close();
+    }
+
+    private static List<String> ids(List<ToDoItem> items) {
+        List<String> ids = new ArrayList<>();
+        for (ToDoItem item : items) {
+            ids.add(item.getTaskId());
+        }
+        return ids;
+    }
+}
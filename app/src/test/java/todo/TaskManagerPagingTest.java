@@ -0,0 +1,130 @@
+package todo;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.*;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.function.Predicate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// страницы listTasks сравниваются с полным списком, отсортированным в тесте
+class TaskManagerPagingTest {
+    private static final int TASKS = 120;
+
+    @TempDir
+    Path directory;
+    private PrintWriter consoleWriter;
+
+    @BeforeEach
+    void silenceConsole() {
+        consoleWriter = ConsoleOutput.writer();
+        ConsoleOutput.setWriter(new PrintWriter(Writer.nullWriter()));
+        ConsoleOutput.setErrorStream(new PrintStream(OutputStream.nullOutputStream()));
+    }
+
+    @AfterEach
+    void restoreConsole() {
+        ConsoleOutput.setWriter(consoleWriter);
+        ConsoleOutput.setErrorStream(System.err);
+    }
+
+    @Test
+    void pagesAreSlicesOfTheFullList() {
+        TaskManager manager = new TaskManager(directory.resolve("tasks.txt").toString());
+        Random random = new Random(16);
+        List<String> ids = new ArrayList<>();
+        for (int i = 0; i < TASKS; i++) {
+            LocalDate deadline = random.nextInt(4) == 0 ? null : LocalDate.of(2026, 3, 1).plusDays(random.nextInt(20));
+            String id = manager.addNewTask("задача " + i, deadline, TaskPriority.values()[random.nextInt(3)]);
+            if (random.nextInt(3) == 0) {
+                manager.updateTask(manager.getTaskById(id).orElseThrow(), null, null, null, true);
+            }
+            ids.add(id);
+        }
+        for (int i = 0; i < 10; i++) {
+            manager.removeTask(ids.get(random.nextInt(ids.size())));
+        }
+        List<ToDoItem> all = new ArrayList<>();
+        for (String id : ids) {
+            manager.getTaskById(id).ifPresent(all::add);
+        }
+
+        Map<String, Predicate<ToDoItem>> filters = new LinkedHashMap<>();
+        filters.put("все", null);
+        filters.put("высокий", item -> item.getPriorityLevel() == TaskPriority.HIGH);
+        filters.put("выполненные", ToDoItem::isCompleted);
+        filters.put("ни одной", item -> false);
+        Runnable[] storageOrders = {manager::sortByInsertionOrder, manager::sortByPriority, manager::sortByDeadline};
+        TaskOrder[] orders = {null, TaskOrder.INSERTION, TaskOrder.DEADLINE, TaskOrder.PRIORITY};
+        for (Runnable storageOrder : storageOrders) {
+            storageOrder.run();
+            for (TaskOrder order : orders) {
+                for (Map.Entry<String, Predicate<ToDoItem>> filter : filters.entrySet()) {
+                    List<String> expected = sorted(all, order != null ? order : manager.getOrder(), filter.getValue());
+                    String message = manager.getOrder() + " " + order + " " + filter.getKey();
+                    assertEquals(expected, page(manager, order, filter.getValue(), 0, Integer.MAX_VALUE), message);
+                    int size = expected.size();
+                    for (int offset : new int[] {0, 1, 17, size - 1, size, size + 1, Integer.MAX_VALUE}) {
+                        for (int limit : new int[] {0, 1, 7, size, Integer.MAX_VALUE}) {
+                            int from = Math.min(Math.max(offset, 0), size);
+                            int to = (int) Math.min((long) from + limit, size);
+                            assertEquals(expected.subList(from, to),
+                                    page(manager, order, filter.getValue(), offset, limit),
+                                    message + " offset=" + offset + " limit=" + limit);
+                        }
+                    }
+                }
+            }
+        }
+        manager.close();
+    }
+
+    @Test
+    void pageKeepsItsSnapshot() {
+        TaskManager manager = new TaskManager(directory.resolve("tasks.txt").toString());
+        for (int i = 0; i < 10; i++) {
+            manager.addNewTask("задача " + i, null, TaskPriority.MEDIUM);
+        }
+        Iterator<ToDoItem> page = manager.listTasks(null, null, 2, 3);
+        assertTrue(manager.removeTask("4"));
+        manager.addNewTask("новая", null, TaskPriority.HIGH);
+
+        List<String> ids = new ArrayList<>();
+        page.forEachRemaining(item -> ids.add(item.getTaskId()));
+        assertEquals(List.of("3", "4", "5"), ids);
+        assertEquals(List.of("3", "5", "6"), page(manager, null, null, 2, 3));
+        manager.close();
+    }
+
+    private static List<String> page(TaskManager manager, TaskOrder order, Predicate<ToDoItem> filter,
+                                     int offset, int limit) {
+        List<String> ids = new ArrayList<>();
+        manager.listTasks(order, filter, offset, limit).forEachRemaining(item -> ids.add(item.getTaskId()));
+        return ids;
+    }
+
+    // невыполненные, затем выполненные; ID растут в порядке добавления
+    private static List<String> sorted(List<ToDoItem> items, TaskOrder order, Predicate<ToDoItem> filter) {
+        Comparator<ToDoItem> byId = Comparator.comparing(item -> Long.parseLong(item.getTaskId()));
+        Comparator<ToDoItem> byDeadline = Comparator.comparing(ToDoItem::getDeadline,
+                Comparator.nullsLast(Comparator.naturalOrder()));
+        Comparator<ToDoItem> comparator = Comparator.comparing(ToDoItem::isCompleted);
+        comparator = switch (order) {
+            case INSERTION -> comparator.thenComparing(byId);
+            case DEADLINE -> comparator.thenComparing(byDeadline).thenComparing(ToDoItem::getPriorityLevel)
+                    .thenComparing(byId);
+            case PRIORITY -> comparator.thenComparing(ToDoItem::getPriorityLevel).thenComparing(byDeadline)
+                    .thenComparing(byId);
+        };
+        List<String> ids = new ArrayList<>();
+        items.stream().filter(item -> filter == null || filter.test(item)).sorted(comparator)
+                .forEach(item -> ids.add(item.getTaskId()));
+        return ids;
+    }
+}
@@ -0,0 +1,110 @@
+package todo;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.*;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class TaskManagerSaveTest {
+    private static final int TASKS = 2000;
+
+    @TempDir
+    Path directory;
+    private PrintWriter consoleWriter;
+
+    @BeforeEach
+    void silenceConsole() {
+        consoleWriter = ConsoleOutput.writer();
+        ConsoleOutput.setWriter(new PrintWriter(Writer.nullWriter()));
+        ConsoleOutput.setErrorStream(new PrintStream(OutputStream.nullOutputStream()));
+    }
+
+    @AfterEach
+    void restoreConsole() {
+        ConsoleOutput.setWriter(consoleWriter);
+        ConsoleOutput.setErrorStream(System.err);
+    }
+
+    @Test
+    void saveKeepsFilePermissions() throws IOException {
+        assumeTrue(FileSystems.getDefault().supportedFileAttributeViews().contains("posix"));
+        Path file = directory.resolve("tasks.txt");
+        for (String mode : List.of("rw-rw-r--", "rw-r-----", "rw-------")) {
+            Set<PosixFilePermission> permissions = PosixFilePermissions.fromString(mode);
+            Files.writeString(file, "# todo v2\n- 1 1 задача: \n");
+            Files.setPosixFilePermissions(file, permissions);
+            for (DurabilityLevel durability : DurabilityLevel.values()) {
+                TaskManager manager = new TaskManager(file.toString());
+                manager.setDurabilityLevel(durability);
+                manager.addNewTask("еще одна " + durability, null, TaskPriority.LOW);
+                assertTrue(manager.changeStorageFormat(StorageFormat.BINARY));
+                assertTrue(manager.changeStorageFormat(StorageFormat.TEXT));
+                manager.close();
+                assertEquals(permissions, Files.getPosixFilePermissions(file), mode + " " + durability);
+            }
+            assertEquals(List.of("tasks.txt"), fileNames());
+        }
+    }
+
+    @Test
+    void readersNeverSeePartialFile() throws Exception {
+        Path file = directory.resolve("tasks.txt");
+        TaskManager manager = new TaskManager(file.toString(), PersistenceMode.JOURNAL);
+        for (int i = 0; i < TASKS; i++) {
+            manager.addNewTask("задача " + i, null, TaskPriority.MEDIUM);
+        }
+        manager.saveTasks();
+        String firstId = manager.listTasks(TaskOrder.INSERTION, null, 0, 1).next().getTaskId();
+
+        // файл заменяется целиком: читатель видит либо старую, либо новую версию
+        AtomicBoolean saving = new AtomicBoolean(true);
+        AtomicReference<String> failure = new AtomicReference<>();
+        Thread reader = new Thread(() -> {
+            try {
+                while (saving.get() && failure.get() == null) {
+                    List<String> lines = Files.readAllLines(file);
+                    if (lines.size() != TASKS + 1 || !lines.get(0).startsWith(ToDoItem.STORAGE_HEADER)) {
+                        failure.set("прочитано строк: " + lines.size());
+                    }
+                }
+            } catch (IOException e) {
+                failure.set(e.toString());
+            }
+        });
+        reader.start();
+        for (int i = 0; i < 50; i++) {
+            ToDoItem first = manager.getTaskById(firstId).orElseThrow();
+            manager.updateTask(first, "версия " + i + " " + "x".repeat(i * 10), null, null, null);
+            manager.saveTasks();
+        }
+        saving.set(false);
+        reader.join();
+        manager.close();
+
+        assertNull(failure.get());
+        assertEquals(List.of("tasks.txt"), fileNames());
+        TaskManager reloaded = new TaskManager(file.toString());
+        assertEquals("версия 49 " + "x".repeat(490), reloaded.getTaskById(firstId).orElseThrow().getTaskDescription());
+        reloaded.close();
+    }
+
+    private List<String> fileNames() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.map(path -> path.getFileName().toString()).sorted().toList();
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package todo;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.*;
+import java.nio.file.Path;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// поиск по триграммному индексу сравнивается с перебором всех описаний
+class TaskManagerSearchTest {
+    private static final String ALPHABET = "абвАБВabAB 1:";
+
+    @TempDir
+    Path directory;
+    private PrintWriter consoleWriter;
+
+    @BeforeEach
+    void silenceConsole() {
+        consoleWriter = ConsoleOutput.writer();
+        ConsoleOutput.setWriter(new PrintWriter(Writer.nullWriter()));
+        ConsoleOutput.setErrorStream(new PrintStream(OutputStream.nullOutputStream()));
+    }
+
+    @AfterEach
+    void restoreConsole() {
+        ConsoleOutput.setWriter(consoleWriter);
+        ConsoleOutput.setErrorStream(System.err);
+    }
+
+    @Test
+    void keywordSearchMatchesFullScan() throws IOException {
+        String file = directory.resolve("tasks.txt").toString();
+        TaskManager manager = new TaskManager(file);
+        Random random = new Random(7);
+        List<String> ids = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            ids.add(manager.addNewTask(randomText(random, 1 + random.nextInt(12)), null,
+                    TaskPriority.values()[random.nextInt(3)]));
+        }
+        assertSearchMatchesScan(manager, random);
+
+        for (int i = 0; i < 150; i++) {
+            String id = ids.get(random.nextInt(ids.size()));
+            ToDoItem task = manager.getTaskById(id).orElse(null);
+            if (task == null) {
+                continue;
+            }
+            switch (random.nextInt(3)) {
+                case 0 -> manager.updateTask(task, randomText(random, 1 + random.nextInt(12)), null, null, null);
+                case 1 -> manager.updateTask(task, null, null, null, random.nextBoolean());
+                default -> manager.removeTask(id);
+            }
+            if (i % 10 == 0) {
+                ids.add(manager.addNewTask(randomText(random, 1 + random.nextInt(12)), null, TaskPriority.HIGH));
+            }
+        }
+        Runnable[] orders = {manager::sortByPriority, manager::sortByDeadline, manager::sortByInsertionOrder};
+        for (Runnable order : orders) {
+            order.run();
+            assertSearchMatchesScan(manager, random);
+        }
+        manager.close();
+
+        // индекс после загрузки из файла
+        manager = new TaskManager(file);
+        assertSearchMatchesScan(manager, random);
+        manager.close();
+    }
+
+    // поиск выдает задачи в порядке хранения - в том же порядке, что и в файле
+    private void assertSearchMatchesScan(TaskManager manager, Random random) throws IOException {
+        Path file = directory.resolve("order.txt");
+        assertTrue(manager.exportSnapshot(file, StorageFormat.TEXT));
+        List<ToDoItem> stored = new ArrayList<>();
+        TaskFileLoader.load(file, stored::add, line -> fail("строка " + line));
+
+        List<String> keywords = new ArrayList<>(List.of("", "а", "А", "аб", "АБВ", "ab", "Ab a", "1:", "нет такого"));
+        for (int i = 0; i < 100; i++) {
+            keywords.add(randomText(random, 1 + random.nextInt(5)));
+        }
+        for (String keyword : keywords) {
+            List<String> expected = new ArrayList<>();
+            String lowerCaseKeyword = keyword.toLowerCase();
+            for (ToDoItem item : stored) {
+                if (item.getTaskDescription().toLowerCase().contains(lowerCaseKeyword)) {
+                    expected.add(item.getTaskId());
+                }
+            }
+            List<String> found = new ArrayList<>();
+            for (ToDoItem item : manager.searchByKeyword(keyword)) {
+                found.add(item.getTaskId());
+            }
+            assertEquals(expected, found, manager.getOrder() + " '" + keyword + "'");
+        }
+    }
+
+    private static String randomText(Random random, int length) {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < length; i++) {
+            text.append(ALPHABET.charAt(random.nextInt(ALPHABET.length())));
+        }
+        return text.toString();
+    }
+}
@@ -0,0 +1,122 @@
+package todo;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TaskManagerWriteBehindTest {
+    private static final Duration NEVER = Duration.ofHours(1);
+
+    @TempDir
+    Path directory;
+    private PrintWriter consoleWriter;
+
+    @BeforeEach
+    void silenceConsole() {
+        consoleWriter = ConsoleOutput.writer();
+        ConsoleOutput.setWriter(new PrintWriter(Writer.nullWriter()));
+        ConsoleOutput.setErrorStream(new PrintStream(OutputStream.nullOutputStream()));
+    }
+
+    @AfterEach
+    void restoreConsole() {
+        ConsoleOutput.setWriter(consoleWriter);
+        ConsoleOutput.setErrorStream(System.err);
+    }
+
+    @Test
+    void durabilityCompletesAfterFlushInterval() throws Exception {
+        Path file = directory.resolve("tasks.txt");
+        TaskManager manager = new TaskManager(file.toString(), PersistenceMode.WRITE_BEHIND, Duration.ofMillis(20), 1000);
+        assertTrue(manager.durability().isDone());
+        manager.addNewTask("первая", LocalDate.of(2026, 12, 1), TaskPriority.HIGH);
+        String id = manager.addNewTask("вторая", null, TaskPriority.LOW);
+        manager.updateTask(manager.getTaskById(id).orElseThrow(), null, null, null, true);
+
+        manager.durability().get(5, TimeUnit.SECONDS);
+        assertEquals(ToDoItemStorageTest.storageLines(manager), storedLines(file));
+        manager.close();
+    }
+
+    @Test
+    void durabilityCompletesAfterFlushThreshold() throws Exception {
+        Path file = directory.resolve("tasks.txt");
+        TaskManager manager = new TaskManager(file.toString(), PersistenceMode.WRITE_BEHIND, NEVER, 3);
+        manager.addNewTask("первая", null, TaskPriority.MEDIUM);
+        manager.addNewTask("вторая", null, TaskPriority.MEDIUM);
+        CompletableFuture<Void> durability = manager.durability();
+        assertFalse(durability.isDone());
+        manager.addNewTask("третья", null, TaskPriority.MEDIUM);
+
+        durability.get(5, TimeUnit.SECONDS);
+        assertEquals(3, storedLines(file).size());
+        manager.close();
+    }
+
+    @Test
+    void flushAndCloseWritePendingChanges() throws IOException {
+        Path file = directory.resolve("tasks.txt");
+        TaskManager manager = new TaskManager(file.toString(), PersistenceMode.WRITE_BEHIND, NEVER, 1000);
+        manager.addNewTask("первая", null, TaskPriority.MEDIUM);
+        manager.flush();
+        assertTrue(manager.durability().isDone());
+        assertEquals(ToDoItemStorageTest.storageLines(manager), storedLines(file));
+
+        String id = manager.addNewTask("вторая", null, TaskPriority.HIGH);
+        assertTrue(manager.removeTask("1"));
+        assertEquals(1, storedLines(file).size());
+        List<String> expected = ToDoItemStorageTest.storageLines(manager);
+        manager.close();
+        assertEquals(expected, storedLines(file));
+
+        TaskManager reloaded = new TaskManager(file.toString(), PersistenceMode.WRITE_BEHIND);
+        assertEquals(expected, ToDoItemStorageTest.storageLines(reloaded));
+        assertEquals("вторая", reloaded.getTaskById(id).orElseThrow().getTaskDescription());
+        reloaded.close();
+    }
+
+    @Test
+    void closedManagerRejectsChanges() throws IOException {
+        for (PersistenceMode mode : PersistenceMode.values()) {
+            Path file = directory.resolve(mode.name() + ".txt");
+            TaskManager manager = new TaskManager(file.toString(), mode, NEVER, 1000);
+            String id = manager.addNewTask("задача", null, TaskPriority.MEDIUM);
+            manager.close();
+            List<String> expected = ToDoItemStorageTest.storageLines(manager);
+            byte[] saved = Files.readAllBytes(file);
+
+            ToDoItem task = manager.getTaskById(id).orElseThrow();
+            assertThrows(IllegalStateException.class, () -> manager.addNewTask("после закрытия", null, TaskPriority.LOW));
+            assertThrows(IllegalStateException.class, () -> manager.updateTask(task, "другое", null, null, true));
+            assertThrows(IllegalStateException.class, () -> manager.removeTask(id));
+            assertThrows(IllegalStateException.class, manager::sortByPriority);
+            assertThrows(IllegalStateException.class, () -> manager.changeStorageFormat(StorageFormat.BINARY));
+            manager.flush();
+            manager.close();
+
+            assertEquals(expected, ToDoItemStorageTest.storageLines(manager), mode.name());
+            assertEquals(TaskOrder.INSERTION, manager.getOrder(), mode.name());
+            assertTrue(manager.durability().isDone(), mode.name());
+            assertArrayEquals(saved, Files.readAllBytes(file), mode.name());
+        }
+    }
+
+    // задачи из файла в виде строк хранения, без заголовка
+    private static List<String> storedLines(Path file) throws IOException {
+        List<String> lines = new ArrayList<>();
+        TaskFileLoader.load(file, item -> lines.add(item.toStorageFormat()), line -> fail("пропущена строка " + line));
+        return lines;
+    }
+}
@@ -0,0 +1,123 @@
+package todo;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.*;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import javax.management.Attribute;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TaskMetricsTest {
+    @TempDir
+    Path directory;
+    private PrintWriter consoleWriter;
+
+    @BeforeEach
+    void silenceConsole() {
+        consoleWriter = ConsoleOutput.writer();
+        ConsoleOutput.setWriter(new PrintWriter(Writer.nullWriter()));
+        ConsoleOutput.setErrorStream(new PrintStream(OutputStream.nullOutputStream()));
+    }
+
+    @AfterEach
+    void restoreConsole() {
+        ConsoleOutput.setWriter(consoleWriter);
+        ConsoleOutput.setErrorStream(System.err);
+    }
+
+    @Test
+    void histogramKeepsBucketPrecision() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long nanos = 1; nanos <= 100_000; nanos++) {
+            histogram.record(nanos);
+        }
+        histogram.record(-5);
+        assertEquals(100_001, histogram.count());
+        assertEquals(100_000, histogram.maxNanos());
+        // отрицательное время записывается как 0
+        assertEquals(5_000_050_000.0 / 100_001, histogram.meanNanos(), 1e-6);
+        // корзина не шире 1/32 значения, и процентиль не меньше точного
+        for (int percentile : new int[] {1, 50, 90, 99}) {
+            long exact = (long) Math.ceil(percentile / 100.0 * 100_001) - 1;
+            long estimate = histogram.percentileNanos(percentile);
+            assertTrue(estimate >= exact && estimate <= exact + exact / 32 + 1, percentile + ": " + estimate);
+        }
+        assertEquals(100_000, histogram.percentileNanos(100));
+
+        histogram.reset();
+        assertEquals(0, histogram.count());
+        assertEquals(0, histogram.percentileNanos(50));
+    }
+
+    @Test
+    void managerRecordsOperationsAndCounters() throws IOException {
+        TaskManager manager = new TaskManager(directory.resolve("tasks.txt").toString());
+        TaskMetrics metrics = manager.metrics();
+        String id = manager.addNewTask("первая", null, TaskPriority.HIGH);
+        manager.addNewTask("вторая", null, TaskPriority.LOW);
+        manager.removeTask(id);
+        manager.searchByKeyword("втор");
+        Path source = directory.resolve("import.txt");
+        Files.writeString(source, "- 1 импорт: \nневерная строка\n");
+        manager.importTasks(source);
+
+        assertEquals(2, metrics.latency(TaskOperation.ADD).count());
+        assertEquals(1, metrics.latency(TaskOperation.REMOVE).count());
+        assertEquals(1, metrics.latency(TaskOperation.SEARCH_KEYWORD).count());
+        assertEquals(1, metrics.latency(TaskOperation.IMPORT).count());
+        assertTrue(metrics.latency(TaskOperation.SAVE).count() >= 4);
+        assertEquals(1, metrics.getLinesSkipped());
+        assertTrue(metrics.getBytesWritten() > 0);
+        assertTrue(metrics.report().contains(TaskOperation.ADD.getRussianName()));
+
+        // выключенные метрики ничего не записывают
+        metrics.setEnabled(false);
+        manager.addNewTask("третья", null, TaskPriority.LOW);
+        assertEquals(2, metrics.latency(TaskOperation.ADD).count());
+        assertTrue(metrics.report().startsWith("сбор статистики выключен"));
+        metrics.setEnabled(true);
+
+        metrics.reset();
+        assertEquals(0, metrics.latency(TaskOperation.ADD).count());
+        assertEquals(0, metrics.getBytesWritten());
+        assertEquals(0, metrics.getLinesSkipped());
+        manager.close();
+    }
+
+    @Test
+    void mbeanIsRegisteredUntilClose() throws Exception {
+        Path file = directory.resolve("tasks.txt");
+        TaskManager manager = new TaskManager(file.toString());
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName name = new ObjectName("todo:type=TaskManager,file="
+                + ObjectName.quote(file.toAbsolutePath().toString()));
+        assertFalse(server.isRegistered(name));
+        assertTrue(manager.registerMetricsMBean());
+        assertTrue(manager.registerMetricsMBean());
+        assertTrue(server.isRegistered(name));
+
+        manager.addNewTask("задача", null, TaskPriority.MEDIUM);
+        List<String> operations = Arrays.asList((String[]) server.getAttribute(name, "Operations"));
+        long[] counts = (long[]) server.getAttribute(name, "Counts");
+        assertEquals(TaskOperation.values().length, operations.size());
+        assertEquals(1, counts[operations.indexOf("Add")]);
+        assertEquals(counts.length, ((double[]) server.getAttribute(name, "P99Micros")).length);
+
+        server.setAttribute(name, new Attribute("Enabled", false));
+        assertFalse(manager.metrics().isEnabled());
+        server.invoke(name, "reset", null, null);
+        assertEquals(0, ((long[]) server.getAttribute(name, "Counts"))[operations.indexOf("Add")]);
+
+        manager.close();
+        assertFalse(server.isRegistered(name));
+    }
+}
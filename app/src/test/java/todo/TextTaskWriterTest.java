@@ -0,0 +1,79 @@
+package todo;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.*;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// файл из TextTaskWriter сравнивается побайтно с прежней записью через BufferedWriter
+class TextTaskWriterTest {
+    // пары суррогатов, одиночные суррогаты и символы, которых нет в однобайтовых кодировках
+    private static final String[] PIECES = {"a", "я", "\\", ":", ": ", "\n", "\r", " ", "😀", "\uD800", "\uDC00", "€"};
+    private static final List<Charset> CHARSETS = List.of(StandardCharsets.UTF_8, Charset.forName("windows-1251"),
+            StandardCharsets.ISO_8859_1, StandardCharsets.UTF_16LE);
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void smallFilesMatchOldWriter() throws IOException {
+        List<ToDoItem> items = new ArrayList<>(ToDoItemStorageTest.ITEMS);
+        items.add(new ToDoItem("16", "", LocalDate.of(1, 1, 1), TaskPriority.LOW, true));
+        items.add(new ToDoItem("17", "😀", LocalDate.of(9999, 12, 31), TaskPriority.HIGH, false));
+        items.add(new ToDoItem("18", "\uD800", LocalDate.of(10000, 1, 1), TaskPriority.MEDIUM, false));
+        items.add(new ToDoItem("19", "год ноль", LocalDate.of(0, 6, 15), TaskPriority.MEDIUM, true));
+        for (Charset charset : CHARSETS) {
+            assertSameAsOldWriter(List.of(), StorageHeader.DEFAULT, charset);
+            assertSameAsOldWriter(items, new StorageHeader(TaskOrder.PRIORITY, 19), charset);
+        }
+    }
+
+    @Test
+    void largeFilesMatchOldWriter() throws IOException {
+        Random random = new Random(20);
+        List<ToDoItem> items = new ArrayList<>();
+        // больше всех буферов писателя вместе, чтобы они записывались несколько раз
+        for (int i = 1; i <= 40_000; i++) {
+            StringBuilder description = new StringBuilder();
+            int count = random.nextInt(30);
+            for (int j = 0; j < count; j++) {
+                description.append(PIECES[random.nextInt(PIECES.length)]);
+            }
+            LocalDate deadline = random.nextInt(3) == 0 ? null : LocalDate.of(1, 1, 1).plusDays(random.nextInt(3_650_000));
+            items.add(new ToDoItem(String.valueOf(i), description.toString(), deadline,
+                    TaskPriority.values()[random.nextInt(3)], random.nextBoolean()));
+        }
+        for (Charset charset : CHARSETS) {
+            assertSameAsOldWriter(items, new StorageHeader(TaskOrder.DEADLINE, 40_000), charset);
+        }
+    }
+
+    private void assertSameAsOldWriter(List<ToDoItem> items, StorageHeader header, Charset charset) throws IOException {
+        ByteArrayOutputStream expected = new ByteArrayOutputStream();
+        BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(expected, charset));
+        writer.write(ToDoItem.storageHeader(header));
+        writer.newLine();
+        for (ToDoItem item : items) {
+            writer.write(item.toStorageFormat());
+            writer.newLine();
+        }
+        writer.flush();
+
+        Path file = directory.resolve("tasks.txt");
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            TextTaskWriter.write(channel, items, header, charset);
+        }
+        assertArrayEquals(expected.toByteArray(), Files.readAllBytes(file), charset + " " + items.size());
+    }
+}
@@ -0,0 +1,122 @@
+package todo;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// однопроходный разбор строк старого формата сравнивается с прежним разбором через split
+class ToDoItemParserTest {
+    private static final List<String> FRAGMENTS = List.of("+", "-", " ", " ", ":", ": ", "1", "2", "3", "01", "a",
+            "я", "\\", "\\:", "2026-01-31", "2026-02-30", "2024-02-29", "2026-13-01", "0000-01-01", "2026-1-1",
+            "+2026-01-01", "99999-01-01");
+    private static final List<String> LINES = List.of("", "-", "+", "- ", "-:", "- :", "- : ", "-  : ", "- 1: ",
+            "- 1 : ", "+ 3 a: ", "- 2 a: b: ", "- 1 a: 2026-02-29", "- 1 a: 2026-02-31", "- 1 a: 2026-04-31",
+            "- 1 a: 2026-00-10", "- 1 a: 2026-01-01 ", "* 1 a: ", "-  a: 2026-01-01", "+ 4 a b c: 2026-01-01");
+
+    private static final DateTimeFormatter BASELINE_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd");
+
+    private PrintWriter consoleWriter;
+    private ByteArrayOutputStream errors;
+
+    @BeforeEach
+    void captureErrors() {
+        consoleWriter = ConsoleOutput.writer();
+        ConsoleOutput.setWriter(new PrintWriter(Writer.nullWriter()));
+        errors = new ByteArrayOutputStream();
+        ConsoleOutput.setErrorStream(new PrintStream(errors, true, StandardCharsets.UTF_8));
+    }
+
+    @AfterEach
+    void restoreConsole() {
+        ConsoleOutput.setWriter(consoleWriter);
+        ConsoleOutput.setErrorStream(System.err);
+    }
+
+    @Test
+    void edgeCasesMatchOldParser() {
+        for (String line : LINES) {
+            assertSameAsBaseline(line);
+        }
+    }
+
+    @Test
+    void randomLinesMatchOldParser() {
+        Random random = new Random(4);
+        for (int i = 0; i < 50_000; i++) {
+            StringBuilder line = new StringBuilder(random.nextBoolean() ? "- " : "+ ");
+            if (random.nextInt(10) == 0) {
+                line.setLength(random.nextInt(2));
+            }
+            int count = random.nextInt(8);
+            for (int j = 0; j < count; j++) {
+                line.append(FRAGMENTS.get(random.nextInt(FRAGMENTS.size())));
+            }
+            assertSameAsBaseline(line.toString());
+        }
+    }
+
+    private void assertSameAsBaseline(String line) {
+        StringBuilder expectedError = new StringBuilder();
+        ToDoItem expected = baselineParse(line, expectedError);
+        errors.reset();
+        ToDoItem actual = ToDoItem.fromStorageFormat(line, false);
+        String actualError = errors.toString(StandardCharsets.UTF_8);
+
+        assertEquals(expectedError.toString(), actualError, line);
+        if (expected == null) {
+            assertNull(actual, line);
+            return;
+        }
+        assertNotNull(actual, line);
+        assertNull(actual.getTaskId(), line);
+        assertEquals(expected.getTaskDescription(), actual.getTaskDescription(), line);
+        assertEquals(expected.getDeadline(), actual.getDeadline(), line);
+        assertEquals(expected.getPriorityLevel(), actual.getPriorityLevel(), line);
+        assertEquals(expected.isCompleted(), actual.isCompleted(), line);
+    }
+
+    // разбор до перехода на однопроходный сканер; сообщения копятся в error вместо System.err
+    private static ToDoItem baselineParse(String storageString, StringBuilder error) {
+        try {
+            if ((!storageString.startsWith("+ ") && !storageString.startsWith("- ")) || !storageString.contains(": ")) {
+                error.append("неверный формат строки: ").append(storageString).append(System.lineSeparator());
+                return null;
+            }
+            boolean isCompleted = storageString.startsWith("+ ");
+            String content = storageString.substring(2);
+            String[] mainParts = content.split(": ", 2);
+            if (mainParts.length != 2) {
+                error.append("неверный формат строки: ").append(storageString).append(System.lineSeparator());
+                return null;
+            }
+            String[] priorityAndDesc = mainParts[0].split(" ", 2);
+            if (priorityAndDesc.length != 2) {
+                error.append("неверный формат строки: ").append(storageString).append(System.lineSeparator());
+                return null;
+            }
+            TaskPriority priority = TaskPriority.fromNumber(priorityAndDesc[0]);
+            LocalDate dueDate = null;
+            if (!mainParts[1].isEmpty()) {
+                dueDate = LocalDate.parse(mainParts[1], BASELINE_FORMATTER);
+            }
+            return new ToDoItem(null, priorityAndDesc[1], dueDate, priority, isCompleted);
+        } catch (DateTimeParseException e) {
+            error.append("ошибка парсинга даты: ").append(storageString).append(" - ").append(e.getMessage())
+                    .append(System.lineSeparator());
+            return null;
+        } catch (Exception e) {
+            error.append("ошибка парсинга: ").append(storageString).append(" - ").append(e.getMessage())
+                    .append(System.lineSeparator());
+            return null;
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package todo;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ToDoItemStorageTest {
+    // описания, которые в формате v2 надо экранировать
+    static final List<ToDoItem> ITEMS = List.of(
+            new ToDoItem("1", "купить молоко", LocalDate.of(2026, 12, 1), TaskPriority.HIGH, false),
+            new ToDoItem("2", "время: 10:00", null, TaskPriority.MEDIUM, true),
+            new ToDoItem("3", "путь C:\\temp\\: и \\n буквально", LocalDate.of(1999, 1, 31), TaskPriority.LOW, false),
+            new ToDoItem("4", "две\nстроки\r\n", LocalDate.of(2100, 2, 28), TaskPriority.MEDIUM, true),
+            new ToDoItem("15", "в конце разделитель: ", null, TaskPriority.HIGH, false));
+
+    @TempDir
+    Path directory;
+    private PrintWriter consoleWriter;
+
+    @BeforeEach
+    void silenceConsole() {
+        consoleWriter = ConsoleOutput.writer();
+        ConsoleOutput.setWriter(new PrintWriter(Writer.nullWriter()));
+        ConsoleOutput.setErrorStream(new PrintStream(OutputStream.nullOutputStream()));
+    }
+
+    @AfterEach
+    void restoreConsole() {
+        ConsoleOutput.setWriter(consoleWriter);
+        ConsoleOutput.setErrorStream(System.err);
+    }
+
+    @Test
+    void escapedDescriptionsRoundTrip() {
+        for (ToDoItem item : ITEMS) {
+            String line = item.toStorageFormat();
+            assertEquals(-1, line.indexOf('\n'), line);
+            assertEquals(-1, line.indexOf('\r'), line);
+            assertSameItem(item, ToDoItem.fromStorageFormat(line));
+        }
+        assertEquals("- 2 7 a\\: b\\\\: ", new ToDoItem("7", "a: b\\", null, TaskPriority.MEDIUM, false).toStorageFormat());
+    }
+
+    @Test
+    void unknownEscapesAreKeptLiterally() {
+        ToDoItem item = ToDoItem.fromStorageFormat("- 1 5 a\\qb: ");
+        assertEquals("a\\qb", item.getTaskDescription());
+    }
+
+    @Test
+    void headerKeepsOrderAndLastId() {
+        for (StorageHeader header : List.of(StorageHeader.DEFAULT, new StorageHeader(TaskOrder.DEADLINE, 0),
+                new StorageHeader(TaskOrder.INSERTION, 42), new StorageHeader(TaskOrder.PRIORITY, Long.MAX_VALUE))) {
+            assertEquals(header, ToDoItem.parseStorageHeader(ToDoItem.storageHeader(header)));
+        }
+        assertEquals("# todo v2 order=deadline last-id=8",
+                ToDoItem.storageHeader(new StorageHeader(TaskOrder.DEADLINE, 8)));
+        assertEquals(new StorageHeader(TaskOrder.INSERTION, 3),
+                ToDoItem.parseStorageHeader("# todo v2 color=red order=random last-id=3"));
+        assertEquals(StorageHeader.DEFAULT, ToDoItem.parseStorageHeader("# todo v2 last-id=x"));
+        assertNull(ToDoItem.parseStorageHeader("# todo v20"));
+        assertNull(ToDoItem.parseStorageHeader("- 1 1 задача: "));
+    }
+
+    @Test
+    void oldFormatWithoutIdsIsRead() throws IOException {
+        Path file = directory.resolve("old.txt");
+        Files.writeString(file, "- 1 купить молоко: 2026-12-01\n+ 3 без срока: \nневерная строка\n");
+
+        List<ToDoItem> loaded = new ArrayList<>();
+        List<Integer> skipped = new ArrayList<>();
+        assertEquals(StorageHeader.DEFAULT, TaskFileLoader.load(file, loaded::add, skipped::add));
+        assertEquals(List.of(3), skipped);
+        assertEquals(2, loaded.size());
+        assertNull(loaded.get(0).getTaskId());
+        assertEquals("купить молоко", loaded.get(0).getTaskDescription());
+        assertEquals(LocalDate.of(2026, 12, 1), loaded.get(0).getDeadline());
+        assertTrue(loaded.get(1).isCompleted());
+        assertNull(loaded.get(1).getDeadline());
+
+        // при загрузке задачи получают ID, а файл переписывается в формате v2
+        TaskManager manager = new TaskManager(file.toString());
+        assertEquals(List.of("1", "2"), ids(manager));
+        manager.saveTasks();
+        manager.close();
+        assertTrue(Files.readAllLines(file).get(0).startsWith(ToDoItem.STORAGE_HEADER));
+    }
+
+    @Test
+    void idsSurviveReloadAndAreNotReused() {
+        String file = directory.resolve("tasks.txt").toString();
+        TaskManager manager = new TaskManager(file);
+        for (ToDoItem item : ITEMS) {
+            manager.addNewTask(item.getTaskDescription(), item.getDeadline(), item.getPriorityLevel());
+        }
+        assertTrue(manager.removeTask("2"));
+        assertTrue(manager.removeTask("5"));
+        List<String> expected = storageLines(manager);
+        manager.close();
+
+        manager = new TaskManager(file);
+        assertEquals(expected, storageLines(manager));
+        assertEquals(List.of("1", "3", "4"), ids(manager));
+        // ID удаленной последней задачи не выдается повторно
+        assertEquals("6", manager.addNewTask("новая", null, TaskPriority.LOW));
+        manager.close();
+    }
+
+    static List<String> storageLines(TaskManager manager) {
+        List<String> lines = new ArrayList<>();
+        manager.listTasks(TaskOrder.INSERTION, null, 0, Integer.MAX_VALUE)
+                .forEachRemaining(item -> lines.add(item.toStorageFormat()));
+        return lines;
+    }
+
+    private static List<String> ids(TaskManager manager) {
+        List<String> ids = new ArrayList<>();
+        manager.listTasks(TaskOrder.INSERTION, null, 0, Integer.MAX_VALUE)
+                .forEachRemaining(item -> ids.add(item.getTaskId()));
+        return ids;
+    }
+
+    static void assertSameItem(ToDoItem expected, ToDoItem actual) {
+        assertNotNull(actual);
+        assertEquals(expected.getTaskId(), actual.getTaskId());
+        assertEquals(expected.getTaskDescription(), actual.getTaskDescription());
+        assertEquals(expected.getDeadline(), actual.getDeadline());
+        assertEquals(expected.getPriorityLevel(), actual.getPriorityLevel());
+        assertEquals(expected.isCompleted(), actual.isCompleted());
+    }
+}
@@ -0,0 +1,71 @@
+package todo;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.Comparator;
+import java.util.Random;
+import java.util.stream.Stream;
+
+// синтетические данные для бенчмарков
+final class BenchmarkData {
+    private static final LocalDate FIRST_DEADLINE = LocalDate.of(2025, 1, 1);
+    private static final String[] WORDS = {
+            "купить", "молоко", "отчет", "позвонить", "маме", "сдать", "лабораторную", "уборка",
+            "в", "комнате", "почистить", "мак", "встреча", "с", "командой", "оплатить", "счета"
+    };
+
+    private BenchmarkData() {}
+
+    // файл в текущем формате: заголовок и lines задач с ID от 1 до lines
+    static Path createTaskFile(Path directory, int lines) throws IOException {
+        Path file = directory.resolve("tasks-" + lines + ".txt");
+        Random random = new Random(lines);
+        try (BufferedWriter writer = Files.newBufferedWriter(file)) {
+            writer.write(ToDoItem.STORAGE_HEADER);
+            writer.newLine();
+            for (int i = 1; i <= lines; i++) {
+                ToDoItem item = randomItem(random, Integer.toString(i));
+                writer.write(item.toStorageFormat());
+                writer.newLine();
+            }
+        }
+        return file;
+    }
+
+    static ToDoItem randomItem(Random random, String taskId) {
+        StringBuilder description = new StringBuilder();
+        int words = 2 + random.nextInt(5);
+        for (int w = 0; w < words; w++) {
+            if (w > 0) {
+                description.append(' ');
+            }
+            description.append(WORDS[random.nextInt(WORDS.length)]);
+        }
+        description.append(" номер ").append(taskId);
+        LocalDate deadline = random.nextInt(4) == 0 ? null : FIRST_DEADLINE.plusDays(random.nextInt(730));
+        TaskPriority priority = TaskPriority.values()[random.nextInt(TaskPriority.values().length)];
+        return new ToDoItem(taskId, description.toString(), deadline, priority, random.nextInt(3) == 0);
+    }
+
+    static Path createTempDirectory() throws IOException {
+        return Files.createTempDirectory("todo-bench");
+    }
+
+    static void deleteDirectory(Path directory) throws IOException {
+        try (Stream<Path> paths = Files.walk(directory)) {
+            for (Path path : (Iterable<Path>) paths.sorted(Comparator.reverseOrder())::iterator) {
+                Files.deleteIfExists(path);
+            }
+        }
+    }
+
+    // TaskManager сообщает о каждой операции в консоль; в бенчмарке это только шум
+    static void silenceConsole() {
+        ConsoleOutput.setWriter(new PrintWriter(Writer.nullWriter()));
+    }
+}
@@ -0,0 +1,211 @@
+package todo;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+// нагрузочный тест HTTP API (TaskHttpServer): clients потоков в течение duration
+// шлют смесь чтений и изменений и замеряют задержки по видам запросов.
+// Без --url поднимает сервер в этом же процессе на временном файле с --tasks задачами:
+//   java -cp benchmarks/target/benchmarks.jar todo.HttpLoadTest --clients 32 --duration 10
+//   java -cp benchmarks/target/benchmarks.jar todo.HttpLoadTest --url http://localhost:8080 --write-percent 20
+public final class HttpLoadTest {
+    private enum Operation { GET, SEARCH, LIST, CREATE, UPDATE, DELETE }
+
+    private static final String[] KEYWORDS = {"молоко", "отчет", "маме", "уборка", "счета", "номер 1"};
+
+    private final HttpClient client;
+    private final String baseUrl;
+    private final int writePercent;
+    private final AtomicInteger maxTaskId;
+    private final AtomicLong errors = new AtomicLong();
+
+    private HttpLoadTest(String baseUrl, int writePercent, int knownTasks) {
+        this.client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
+        this.baseUrl = baseUrl;
+        this.writePercent = writePercent;
+        this.maxTaskId = new AtomicInteger(knownTasks);
+    }
+
+    public static void main(String[] args) throws Exception {
+        String url = null;
+        int clients = 32;
+        int durationSeconds = 10;
+        int writePercent = 10;
+        int tasks = 10_000;
+        String mode = PersistenceMode.JOURNAL.name();
+        String durability = DurabilityLevel.FSYNC.name();
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            String value = args[i + 1];
+            switch (args[i]) {
+                case "--url" -> url = value;
+                case "--clients" -> clients = Integer.parseInt(value);
+                case "--duration" -> durationSeconds = Integer.parseInt(value);
+                case "--write-percent" -> writePercent = Integer.parseInt(value);
+                case "--tasks" -> tasks = Integer.parseInt(value);
+                case "--mode" -> mode = value;
+                case "--durability" -> durability = value;
+                default -> throw new IllegalArgumentException("неизвестный параметр: " + args[i]);
+            }
+        }
+
+        Path directory = null;
+        TaskManager taskManager = null;
+        TaskHttpServer server = null;
+        if (url == null) {
+            BenchmarkData.silenceConsole();
+            directory = BenchmarkData.createTempDirectory();
+            Path taskFile = BenchmarkData.createTaskFile(directory, tasks);
+            taskManager = new TaskManager(taskFile.toString(), PersistenceMode.valueOf(mode));
+            taskManager.setDurabilityLevel(DurabilityLevel.valueOf(durability));
+            server = TaskHttpServer.start(taskManager, new InetSocketAddress("localhost", 0),
+                    TaskHttpServer.DEFAULT_THREADS);
+            url = "http://localhost:" + server.address().getPort();
+            System.out.println("встроенный сервер: " + url + ", задач: " + tasks + ", " + mode + "/" + durability);
+        }
+        try {
+            new HttpLoadTest(url + "/tasks", writePercent, tasks).run(clients, Duration.ofSeconds(durationSeconds));
+        } finally {
+            if (server != null) {
+                server.stop();
+                taskManager.close();
+                BenchmarkData.deleteDirectory(directory);
+            }
+        }
+    }
+
+    private void run(int clients, Duration duration) throws InterruptedException {
+        long deadline = System.nanoTime() + duration.toNanos();
+        LatencyRecorder[][] recorders = new LatencyRecorder[clients][];
+        List<Thread> threads = new ArrayList<>();
+        for (int c = 0; c < clients; c++) {
+            LatencyRecorder[] own = new LatencyRecorder[Operation.values().length];
+            Arrays.setAll(own, i -> new LatencyRecorder());
+            recorders[c] = own;
+            Thread thread = new Thread(() -> {
+                while (System.nanoTime() < deadline) {
+                    Operation operation = nextOperation();
+                    long start = System.nanoTime();
+                    execute(operation);
+                    own[operation.ordinal()].add(System.nanoTime() - start);
+                }
+            }, "load-" + c);
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        report(recorders, duration);
+    }
+
+    private Operation nextOperation() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        if (random.nextInt(100) < writePercent) {
+            int write = random.nextInt(10);
+            return write < 6 ? Operation.CREATE : write < 9 ? Operation.UPDATE : Operation.DELETE;
+        }
+        int read = random.nextInt(10);
+        return read < 6 ? Operation.GET : read < 8 ? Operation.SEARCH : Operation.LIST;
+    }
+
+    private void execute(Operation operation) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        String id = Integer.toString(1 + random.nextInt(Math.max(maxTaskId.get(), 1)));
+        HttpRequest.Builder request = switch (operation) {
+            case GET -> HttpRequest.newBuilder(URI.create(baseUrl + "/" + id));
+            case SEARCH -> HttpRequest.newBuilder(URI.create(baseUrl + "?limit=20&q="
+                    + URLEncoder.encode(KEYWORDS[random.nextInt(KEYWORDS.length)], StandardCharsets.UTF_8)));
+            case LIST -> HttpRequest.newBuilder(URI.create(baseUrl + "?limit=20&offset="
+                    + random.nextInt(Math.max(maxTaskId.get() - 20, 1))));
+            case CREATE -> HttpRequest.newBuilder(URI.create(baseUrl)).POST(HttpRequest.BodyPublishers.ofString(
+                    "{\"description\":\"нагрузка " + random.nextInt(1_000_000) + "\",\"priority\":"
+                            + (1 + random.nextInt(3)) + "}"));
+            case UPDATE -> HttpRequest.newBuilder(URI.create(baseUrl + "/" + id)).method("PATCH",
+                    HttpRequest.BodyPublishers.ofString("{\"completed\":" + random.nextBoolean() + "}"));
+            case DELETE -> HttpRequest.newBuilder(URI.create(baseUrl + "/" + id)).DELETE();
+        };
+        try {
+            HttpResponse<String> response = client.send(request.build(), HttpResponse.BodyHandlers.ofString());
+            int status = response.statusCode();
+            // 404 - задачу уже удалил другой клиент, это не ошибка сервера
+            if (status >= 400 && status != 404) {
+                errors.incrementAndGet();
+            }
+            if (operation == Operation.CREATE && status == 201) {
+                maxTaskId.incrementAndGet();
+            }
+        } catch (IOException e) {
+            errors.incrementAndGet();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void report(LatencyRecorder[][] recorders, Duration duration) {
+        double seconds = duration.toMillis() / 1000.0;
+        long total = 0;
+        System.out.printf(Locale.ROOT, "%-8s %10s %10s %9s %9s %9s %9s%n",
+                "запрос", "всего", "в сек", "p50 мс", "p90 мс", "p99 мс", "max мс");
+        for (Operation operation : Operation.values()) {
+            LatencyRecorder merged = new LatencyRecorder();
+            for (LatencyRecorder[] own : recorders) {
+                merged.addAll(own[operation.ordinal()]);
+            }
+            long[] latencies = merged.sorted();
+            total += latencies.length;
+            if (latencies.length == 0) {
+                continue;
+            }
+            System.out.printf(Locale.ROOT, "%-8s %10d %10.0f %9.2f %9.2f %9.2f %9.2f%n",
+                    operation.name().toLowerCase(Locale.ROOT), latencies.length, latencies.length / seconds,
+                    millis(latencies, 0.50), millis(latencies, 0.90), millis(latencies, 0.99),
+                    latencies[latencies.length - 1] / 1e6);
+        }
+        System.out.printf(Locale.ROOT, "всего %d запросов, %.0f в сек, ошибок %d%n",
+                total, total / seconds, errors.get());
+    }
+
+    private static double millis(long[] sorted, double percentile) {
+        return sorted[Math.min(sorted.length - 1, (int) (sorted.length * percentile))] / 1e6;
+    }
+
+    // задержки одного потока в наносекундах
+    private static final class LatencyRecorder {
+        private long[] values = new long[1024];
+        private int size;
+
+        void add(long value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        void addAll(LatencyRecorder other) {
+            for (int i = 0; i < other.size; i++) {
+                add(other.values[i]);
+            }
+        }
+
+        long[] sorted() {
+            long[] result = Arrays.copyOf(values, size);
+            Arrays.sort(result);
+            return result;
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package todo;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+// поиск и сортировка на загруженном списке задач
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class TaskManagerBenchmark {
+    private static final int LOOKUP_IDS = 1024;
+    private static final int PAGE_SIZE = 20;
+
+    @Param({"10000", "100000", "1000000"})
+    private int tasks;
+
+    // сбор статистики TaskMetrics: сравнение показывает его цену на быстрых операциях
+    @Param({"true", "false"})
+    private boolean metrics;
+
+    private Path directory;
+    private TaskManager manager;
+    private String[] lookupIds;
+    private int nextLookup;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        BenchmarkData.silenceConsole();
+        directory = BenchmarkData.createTempDirectory();
+        manager = new TaskManager(BenchmarkData.createTaskFile(directory, tasks).toString());
+        manager.metrics().setEnabled(metrics);
+        Random random = new Random(tasks);
+        lookupIds = new String[LOOKUP_IDS];
+        for (int i = 0; i < LOOKUP_IDS; i++) {
+            lookupIds[i] = Integer.toString(1 + random.nextInt(tasks));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        BenchmarkData.deleteDirectory(directory);
+    }
+
+    @Benchmark
+    public Optional<ToDoItem> getTaskById() {
+        nextLookup = (nextLookup + 1) & (LOOKUP_IDS - 1);
+        return manager.getTaskById(lookupIds[nextLookup]);
+    }
+
+    @Benchmark
+    public List<ToDoItem> searchByKeyword() {
+        return manager.searchByKeyword("номер 4242");
+    }
+
+    @Benchmark
+    public List<ToDoItem> searchByShortKeyword() {
+        return manager.searchByKeyword("ма");
+    }
+
+    @Benchmark
+    public List<ToDoItem> searchByPriority() {
+        return manager.searchByPriority(TaskPriority.HIGH);
+    }
+
+    @Benchmark
+    public List<ToDoItem> searchByCompletionStatus() {
+        return manager.searchByCompletionStatus(false);
+    }
+
+    // страница из середины списка: начало находится без обхода предыдущих задач
+    @Benchmark
+    public void listMiddlePage(Blackhole blackhole) {
+        manager.listTasks(null, null, tasks / 2, PAGE_SIZE).forEachRemaining(blackhole::consume);
+    }
+
+    @Benchmark
+    public void listFilteredPage(Blackhole blackhole) {
+        manager.listTasks(null, item -> item.getPriorityLevel() == TaskPriority.HIGH, 0, PAGE_SIZE)
+                .forEachRemaining(blackhole::consume);
+    }
+
+    // при порядке добавления nextDue проходит все задачи через кучу из 20 элементов
+    @Benchmark
+    public List<ToDoItem> nextDue() {
+        return manager.nextDue(PAGE_SIZE);
+    }
+
+    // сортировка включает сохранение файла, как и при вызове из меню
+    @Benchmark
+    public void sortByDeadline() {
+        manager.sortByDeadline();
+    }
+
+    @Benchmark
+    public void sortByPriority() {
+        manager.sortByPriority();
+    }
+}
@@ -0,0 +1,58 @@
+package todo;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+// добавление задач с сохранением в каждом из режимов PersistenceMode
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class TaskMutationBenchmark {
+    // строка, а не PersistenceMode: сгенерированный JMH код лежит в другом пакете
+    @Param({"IMMEDIATE", "JOURNAL", "WRITE_BEHIND"})
+    private String mode;
+
+    @Param({"10000"})
+    private int tasks;
+
+    private Path directory;
+    private TaskManager manager;
+
+    // каждая итерация начинается с файла исходного размера
+    @Setup(Level.Iteration)
+    public void setUp() throws IOException {
+        BenchmarkData.silenceConsole();
+        directory = BenchmarkData.createTempDirectory();
+        manager = new TaskManager(BenchmarkData.createTaskFile(directory, tasks).toString(),
+                PersistenceMode.valueOf(mode));
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDown() throws IOException {
+        manager.close();
+        BenchmarkData.deleteDirectory(directory);
+    }
+
+    @Benchmark
+    public void addNewTask() {
+        manager.addNewTask("новая задача", null, TaskPriority.MEDIUM);
+    }
+}
@@ -0,0 +1,67 @@
+package todo;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+// загрузка (конструктор TaskManager) и полное сохранение файла задач.
+// Файлы на 10 млн строк: -p lines=10000000 и достаточный -Xmx в -jvmArgsAppend
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class TaskStorageBenchmark {
+    @Param({"10000", "100000", "1000000"})
+    private int lines;
+
+    // строка, а не DurabilityLevel: сгенерированный JMH код лежит в другом пакете
+    @Param({"NONE", "FLUSH", "FSYNC"})
+    private String durability;
+
+    private Path directory;
+    private Path taskFile;
+    private TaskManager manager;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        BenchmarkData.silenceConsole();
+        directory = BenchmarkData.createTempDirectory();
+        taskFile = BenchmarkData.createTaskFile(directory, lines);
+        Path saveFile = directory.resolve("save.txt");
+        Files.copy(taskFile, saveFile);
+        manager = new TaskManager(saveFile.toString());
+        manager.setDurabilityLevel(DurabilityLevel.valueOf(durability));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        BenchmarkData.deleteDirectory(directory);
+    }
+
+    @Benchmark
+    public TaskManager loadTasks() {
+        return new TaskManager(taskFile.toString());
+    }
+
+    @Benchmark
+    public void saveTasks() {
+        manager.saveTasks();
+    }
+}
@@ -0,0 +1,62 @@
+package todo;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// разбор, форматирование и вывод одной строки файла задач
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ToDoItemBenchmark {
+    private String storageLine;
+    private String storageLineWithoutDeadline;
+    private ToDoItem item;
+    private StringBuilder renderBuffer;
+
+    @Setup
+    public void setUp() {
+        storageLine = "- 2 123456 позвонить маме и сдать лабораторную: 2025-11-03";
+        storageLineWithoutDeadline = "+ 1 123457 почистить мак: ";
+        item = ToDoItem.fromStorageFormat(storageLine);
+        renderBuffer = new StringBuilder();
+    }
+
+    @Benchmark
+    public ToDoItem fromStorageFormat() {
+        return ToDoItem.fromStorageFormat(storageLine);
+    }
+
+    @Benchmark
+    public ToDoItem fromStorageFormatWithoutDeadline() {
+        return ToDoItem.fromStorageFormat(storageLineWithoutDeadline);
+    }
+
+    @Benchmark
+    public String toStorageFormat() {
+        return item.toStorageFormat();
+    }
+
+    @Benchmark
+    public String render() {
+        return item.toString();
+    }
+
+    @Benchmark
+    public int renderIntoBuffer() {
+        renderBuffer.setLength(0);
+        return item.appendTo(renderBuffer).length();
+    }
+}